@@ -29,6 +29,8 @@ public class DaoUtil {
       Collections.unmodifiableList(Arrays.asList(AccessLevelType.WRITE, AccessLevelType.ADMIN));
   public static final List<AccessLevelType> ADMIN_ACCESS_TYPES =
       Collections.singletonList(AccessLevelType.ADMIN);
+  /** Maximum number of rows written with one multi-row insert. */
+  public static final int BATCH_SIZE = 500;
 
   /**
    * Returns a condition which checks whether a user is able to access and see a namespace or not.
@@ -2,6 +2,10 @@ package de.dataelementhub.model;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import de.dataelementhub.dal.jooq.enums.ElementType;
 import de.dataelementhub.model.adapter.NumericValidationAdapter;
 import de.dataelementhub.model.dto.element.DataElement;
 import de.dataelementhub.model.dto.element.DataElementGroup;
@@ -12,6 +16,8 @@ import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.ValueDomain;
 import de.dataelementhub.model.dto.element.section.validation.Numeric;
 import de.dataelementhub.model.dto.element.section.validation.PermittedValue;
+import java.io.IOException;
+import java.io.StringReader;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
@@ -21,17 +27,20 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Deserializer {
 
+  /**
+   * Gson instances are thread-safe, so one pre-configured instance is shared by all calls.
+   */
+  private static final Gson GSON = new GsonBuilder()
+      .registerTypeHierarchyAdapter(Numeric.class, new NumericValidationAdapter())
+      .disableHtmlEscaping()
+      .create();
+
   /**
    * Deserialize JSON elements into the corresponding class.
    * Expect Identification Object in JSON
    */
   public static Element getElement(String content) {
-    Gson gson = new GsonBuilder().create();
-    try {
-      return getElement(content, gson.fromJson(content, Element.class).getIdentification());
-    } catch (NullPointerException e) {
-      throw new IllegalArgumentException("Element Type is not supported");
-    }
+    return getElement(content, readElementType(content));
   }
 
   /**
@@ -39,28 +48,64 @@ public class Deserializer {
    * Supply Identification object externally.
    */
   public static Element getElement(String content, Identification identification) {
-    GsonBuilder gsonBuilder = new GsonBuilder();
-    gsonBuilder.registerTypeHierarchyAdapter(Numeric.class, new NumericValidationAdapter());
-    gsonBuilder.disableHtmlEscaping();
-    Gson gson = gsonBuilder.create();
-
+    return getElement(content, identification.getElementType());
+  }
 
-    switch (identification.getElementType()) {
+  /**
+   * Deserialize JSON elements into the class belonging to the given element type.
+   */
+  private static Element getElement(String content, ElementType elementType) {
+    switch (elementType) {
       case NAMESPACE:
-        return gson.fromJson(content, Namespace.class);
+        return GSON.fromJson(content, Namespace.class);
       case DATAELEMENT:
-        return gson.fromJson(content, DataElement.class);
+        return GSON.fromJson(content, DataElement.class);
       case DATAELEMENTGROUP:
-        return gson.fromJson(content, DataElementGroup.class);
+        return GSON.fromJson(content, DataElementGroup.class);
       case RECORD:
-        return gson.fromJson(content, Record.class);
+        return GSON.fromJson(content, Record.class);
       case DESCRIBED_VALUE_DOMAIN:
       case ENUMERATED_VALUE_DOMAIN:
-        return gson.fromJson(content, ValueDomain.class);
+        return GSON.fromJson(content, ValueDomain.class);
       case PERMISSIBLE_VALUE:
-        return gson.fromJson(content, PermittedValue.class);
+        return GSON.fromJson(content, PermittedValue.class);
       default:
         throw new IllegalArgumentException("Element Type is not supported");
     }
   }
+
+  /**
+   * Read identification.elementType from the JSON content with a streaming reader. All other
+   * values are skipped without being materialized.
+   */
+  private static ElementType readElementType(String content) {
+    try (JsonReader reader = new JsonReader(new StringReader(content))) {
+      reader.setLenient(true);
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        throw new IllegalArgumentException("Element Type is not supported");
+      }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (reader.nextName().equals("identification")
+            && reader.peek() == JsonToken.BEGIN_OBJECT) {
+          reader.beginObject();
+          while (reader.hasNext()) {
+            if (reader.nextName().equals("elementType")
+                && reader.peek() == JsonToken.STRING) {
+              return ElementType.valueOf(reader.nextString());
+            }
+            reader.skipValue();
+          }
+          reader.endObject();
+        } else {
+          reader.skipValue();
+        }
+      }
+    } catch (IOException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Element Type is not supported");
+    }
+    throw new IllegalArgumentException("Element Type is not supported");
+  }
 }
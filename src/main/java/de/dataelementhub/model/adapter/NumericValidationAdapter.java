@@ -2,13 +2,8 @@ package de.dataelementhub.model.adapter;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonNull;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.TypeAdapter;
-import com.google.gson.internal.LazilyParsedNumber;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
@@ -16,11 +11,12 @@ import de.dataelementhub.model.dto.element.section.validation.Numeric;
 import de.dataelementhub.model.dto.element.section.validation.NumericFloat;
 import de.dataelementhub.model.dto.element.section.validation.NumericInteger;
 import java.io.IOException;
+import java.math.BigDecimal;
 
 /**
  * TypeAdapter Class to handle Numeric DTO and its extensions.
- * When reading a numeric object, check the type attribute and parse the JSON Object
- * with the proper numeric class (float or int).
+ * When reading a numeric object, check the type attribute and decode the JSON Object
+ * into the proper numeric class (float or int) without building an intermediate tree.
  */
 public class NumericValidationAdapter extends TypeAdapter<Numeric> {
 
@@ -50,8 +46,9 @@ public class NumericValidationAdapter extends TypeAdapter<Numeric> {
   }
 
   /**
-   * Reads one JSON value (an array, object, string, number, boolean or null) and converts it to a
-   * Numeric object. Returns the converted object.
+   * Reads one JSON object and converts it to a Numeric object directly from the stream. The type
+   * attribute may appear anywhere in the object, so minimum and maximum are kept as their literal
+   * values until the type is known. Returns the converted object.
    *
    * @param jsonReader the JsonReader to use
    * @return the converted Numeric object. May be null.
@@ -61,60 +58,97 @@ public class NumericValidationAdapter extends TypeAdapter<Numeric> {
     if (jsonReader.peek() == JsonToken.NULL) {
       jsonReader.nextNull();
       return null;
-    } else {
-      JsonElement jsonElement = readJsonElement(jsonReader);
-      JsonObject jsonObject = jsonElement.getAsJsonObject();
-      String type = jsonObject.getAsJsonPrimitive("type").getAsString();
+    }
+    String type = null;
+    Boolean useMinimum = null;
+    Boolean useMaximum = null;
+    String unitOfMeasure = null;
+    String minimum = null;
+    String maximum = null;
 
-      if (type == null || type.isEmpty()) {
-        return null;
-      } else {
-        if (type.equalsIgnoreCase(Numeric.TYPE_FLOAT)) {
-          return GSON.fromJson(jsonObject, NumericFloat.class);
-        } else if (type.equalsIgnoreCase(Numeric.TYPE_INTEGER)) {
-          return GSON.fromJson(jsonObject, NumericInteger.class);
-        } else {
-          throw new IllegalArgumentException("Illegal type: " + type);
-        }
+    jsonReader.beginObject();
+    while (jsonReader.hasNext()) {
+      String name = jsonReader.nextName();
+      if (jsonReader.peek() == JsonToken.NULL) {
+        jsonReader.nextNull();
+        continue;
+      }
+      switch (name) {
+        case "type":
+          type = jsonReader.nextString();
+          break;
+        case "useMinimum":
+          useMinimum = jsonReader.nextBoolean();
+          break;
+        case "useMaximum":
+          useMaximum = jsonReader.nextBoolean();
+          break;
+        case "unitOfMeasure":
+          unitOfMeasure = jsonReader.nextString();
+          break;
+        case "minimum":
+          minimum = jsonReader.nextString();
+          break;
+        case "maximum":
+          maximum = jsonReader.nextString();
+          break;
+        default:
+          jsonReader.skipValue();
+          break;
       }
     }
+    jsonReader.endObject();
+
+    if (type == null || type.isEmpty()) {
+      return null;
+    }
+    Numeric numeric;
+    if (type.equalsIgnoreCase(Numeric.TYPE_FLOAT)) {
+      NumericFloat numericFloat = new NumericFloat();
+      numericFloat.setMinimum(toDouble(minimum));
+      numericFloat.setMaximum(toDouble(maximum));
+      numeric = numericFloat;
+    } else if (type.equalsIgnoreCase(Numeric.TYPE_INTEGER)) {
+      NumericInteger numericInteger = new NumericInteger();
+      numericInteger.setMinimum(toLong(minimum));
+      numericInteger.setMaximum(toLong(maximum));
+      numeric = numericInteger;
+    } else {
+      throw new IllegalArgumentException("Illegal type: " + type);
+    }
+    numeric.setType(type);
+    numeric.setUseMinimum(useMinimum);
+    numeric.setUseMaximum(useMaximum);
+    numeric.setUnitOfMeasure(unitOfMeasure);
+    return numeric;
   }
 
   /**
-   * Read the next element from a json reader.
-   *
-   * @param in the jsonreader to read from
-   * @return The next element - either a jsonprimitive, jsonobject or jsonarray
+   * Convert a numeric literal to a double.
    */
-  private JsonElement readJsonElement(JsonReader in) throws IOException {
-    switch (in.peek()) {
-      case NUMBER:
-        return new JsonPrimitive(new LazilyParsedNumber(in.nextString()));
-      case BOOLEAN:
-        return new JsonPrimitive(in.nextBoolean());
-      case STRING:
-        return new JsonPrimitive(in.nextString());
-      case NULL:
-        in.nextNull();
-        return JsonNull.INSTANCE;
-      case BEGIN_ARRAY:
-        JsonArray array = new JsonArray();
-        in.beginArray();
-        while (in.hasNext()) {
-          array.add(readJsonElement(in));
-        }
-        in.endArray();
-        return array;
-      case BEGIN_OBJECT:
-        JsonObject object = new JsonObject();
-        in.beginObject();
-        while (in.hasNext()) {
-          object.add(in.nextName(), readJsonElement(in));
-        }
-        in.endObject();
-        return object;
-      default:
-        throw new IllegalArgumentException();
+  private static Double toDouble(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Double.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException("Expected a double but was " + value, e);
+    }
+  }
+
+  /**
+   * Convert a numeric literal to a long. Like gson, integral values in decimal notation (e.g. 1.0)
+   * are accepted.
+   */
+  private static Long toLong(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return new BigDecimal(value).longValueExact();
+    } catch (ArithmeticException | NumberFormatException e) {
+      throw new JsonSyntaxException("Expected a long but was " + value, e);
     }
   }
 }
@@ -27,11 +27,12 @@ public class Element implements Serializable {
   private List<Slot> slots;
 
   /**
-   * Filter definitions to only contain the requested languages.
+   * Parse an Accept-Language style list into lower case language codes in order of preference.
+   * Returns an empty list if no language or the wildcard is requested.
    */
-  public void applyLanguageFilter(String languages) {
+  public static List<String> parseLanguages(String languages) {
     if (languages == null || languages.isEmpty()) {
-      return;
+      return new ArrayList<>();
     }
     List<Locale> locales = LanguageRange.parse(languages).stream()
         .map(range -> new Locale(range.getRange())).collect(
@@ -48,9 +49,20 @@ public class Element implements Serializable {
           return language;
         })
         .collect(Collectors.toList());
+    return requestedLanguages.contains("*") ? new ArrayList<>() : requestedLanguages;
+  }
+
+  /**
+   * Filter definitions to only contain the requested languages.
+   */
+  public void applyLanguageFilter(String languages) {
+    if (languages == null || languages.isEmpty()) {
+      return;
+    }
+    List<String> requestedLanguages = parseLanguages(languages);
 
     // If requested languages contains wildcard character - don't change anything
-    if (requestedLanguages.contains("*")) {
+    if (requestedLanguages.isEmpty()) {
       return;
     }
 
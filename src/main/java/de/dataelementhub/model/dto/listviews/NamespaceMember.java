@@ -12,8 +12,6 @@ import de.dataelementhub.model.dto.element.section.Definition;
 import de.dataelementhub.model.dto.element.section.ValueDomain;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.Locale.LanguageRange;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -72,6 +70,14 @@ public class NamespaceMember {
   }
 
 
+  /**
+   * Parse an Accept-Language style list into lower case language codes. Returns an empty list if
+   * no language or the wildcard is requested.
+   */
+  public static List<String> parseLanguages(String languages) {
+    return Element.parseLanguages(languages);
+  }
+
   /**
    * Filter definitions to only contain the requested languages.
    */
@@ -79,24 +85,10 @@ public class NamespaceMember {
     if (languages == null || languages.isEmpty()) {
       return;
     }
-    List<Locale> locales = LanguageRange.parse(languages).stream()
-        .map(range -> new Locale(range.getRange())).collect(
-            Collectors.toList());
-
-    List<String> requestedLanguages = locales.stream()
-        .map(locale -> {
-          String language;
-          try {
-            language = locale.getLanguage().split("-")[0].toLowerCase();
-          } catch (Exception e) {
-            language = locale.getLanguage().toLowerCase();
-          }
-          return language;
-        })
-        .collect(Collectors.toList());
+    List<String> requestedLanguages = parseLanguages(languages);
 
     // If requested languages contains wildcard character - don't change anything
-    if (requestedLanguages.contains("*")) {
+    if (requestedLanguages.isEmpty()) {
       return;
     }
 
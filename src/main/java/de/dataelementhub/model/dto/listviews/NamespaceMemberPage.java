@@ -0,0 +1,24 @@
+package de.dataelementhub.model.dto.listviews;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of the namespace member listview. The next page is requested with nextAfterValue and
+ * nextAfterId, which are null on the last page. The total count is only set on the first page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class NamespaceMemberPage {
+
+  private List<NamespaceMember> members;
+  private Integer totalCount;
+  private String nextAfterValue;
+  private Integer nextAfterId;
+}
@@ -7,6 +7,7 @@ import de.dataelementhub.dal.jooq.enums.AccessLevelType;
 import de.dataelementhub.dal.jooq.enums.ElementType;
 import de.dataelementhub.dal.jooq.tables.pojos.UserNamespaceAccess;
 import de.dataelementhub.dal.jooq.tables.records.UserNamespaceAccessRecord;
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
 import java.util.List;
 import org.jooq.DSLContext;
@@ -113,5 +114,8 @@ public class AccessLevelHandler {
             USER_NAMESPACE_ACCESS.NAMESPACE_ID, USER_NAMESPACE_ACCESS.ACCESS_LEVEL)
         .values(al.getUserId(), al.getNamespaceId(), al.getAccessLevel()).onConflictDoNothing()
         .execute());
+    accessLevels.stream().map(UserNamespaceAccess::getNamespaceId).distinct().forEach(
+        namespaceId -> CacheInvalidationBus.publish(ctx, Region.ACCESS_LEVEL,
+            String.valueOf(namespaceId)));
   }
 }
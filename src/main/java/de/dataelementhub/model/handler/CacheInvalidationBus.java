@@ -0,0 +1,121 @@
+package de.dataelementhub.model.handler;
+
+import de.dataelementhub.model.handler.element.ElementCache;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+
+/**
+ * Cache Invalidation Bus.
+ *
+ * <p>Handlers publish writes that make cached data stale to the bus instead of evicting their
+ * local caches, so the caches of all nodes sharing the database are evicted. The bus evicts the
+ * element and user caches itself, other subscribers can be added. Until a channel is set, the
+ * invalidations are only delivered in this process.
+ */
+@Slf4j
+public class CacheInvalidationBus {
+
+  /**
+   * The cached data an invalidation refers to.
+   */
+  public enum Region {
+    /** Keyed by element urn. */
+    ELEMENT,
+    /** Keyed by user auth id. */
+    USER,
+    /** Keyed by user database id. */
+    USER_ID,
+    /** Keyed by namespace urn. */
+    NAMESPACE,
+    /** Keyed by namespace database id. */
+    ACCESS_LEVEL,
+    /** Element relations, always invalidated as a whole (key null). */
+    RELATION
+  }
+
+  private static final List<BiConsumer<Region, String>> SUBSCRIBERS =
+      new CopyOnWriteArrayList<>();
+  private static CacheInvalidationChannel channel;
+
+  static {
+    SUBSCRIBERS.add(CacheInvalidationBus::evictLocalCaches);
+    setChannel(new LoopbackInvalidationChannel());
+  }
+
+  /**
+   * Replace the channel invalidations are published to. The previous channel is closed.
+   */
+  public static synchronized void setChannel(CacheInvalidationChannel newChannel) {
+    if (channel != null) {
+      channel.close();
+    }
+    newChannel.subscribe(CacheInvalidationBus::deliver);
+    channel = newChannel;
+  }
+
+  /**
+   * Register a subscriber for the invalidations of all nodes.
+   */
+  public static void subscribe(BiConsumer<Region, String> subscriber) {
+    SUBSCRIBERS.add(subscriber);
+  }
+
+  /**
+   * Publish that the entry with this key of a cache region is stale. A key of null invalidates
+   * the whole region.
+   */
+  public static void publish(DSLContext ctx, Region region, String key) {
+    CacheInvalidationChannel current;
+    synchronized (CacheInvalidationBus.class) {
+      current = channel;
+    }
+    current.publish(ctx, region, key);
+  }
+
+  private static void deliver(Region region, String key) {
+    for (BiConsumer<Region, String> subscriber : SUBSCRIBERS) {
+      try {
+        subscriber.accept(region, key);
+      } catch (RuntimeException e) {
+        log.warn("Cache invalidation of " + region + " " + key + " failed", e);
+      }
+    }
+  }
+
+  private static void evictLocalCaches(Region region, String key) {
+    switch (region) {
+      case ELEMENT:
+        if (key == null) {
+          ElementCache.clear();
+        } else {
+          ElementCache.evict(key);
+        }
+        break;
+      case USER:
+        if (key == null) {
+          UserCache.clear();
+        } else {
+          UserCache.evict(key, null);
+        }
+        break;
+      case USER_ID:
+        if (key == null) {
+          UserCache.clear();
+        } else {
+          UserCache.evict(null, Integer.valueOf(key));
+        }
+        break;
+      case NAMESPACE:
+        // Cached elements carry the urn and database id of their namespace revision
+        ElementCache.clear();
+        break;
+      case ACCESS_LEVEL:
+      case RELATION:
+      default:
+        break;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package de.dataelementhub.model.handler;
+
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
+import java.util.function.BiConsumer;
+import org.jooq.DSLContext;
+
+/**
+ * Cache Invalidation Channel.
+ *
+ * <p>Carries cache invalidations to all nodes of a deployment, including the publishing node.
+ */
+public interface CacheInvalidationChannel {
+
+  /**
+   * Publish that the entry with this key of a cache region is stale. A key of null invalidates
+   * the whole region.
+   */
+  void publish(DSLContext ctx, Region region, String key);
+
+  /**
+   * Register a subscriber that is called for every invalidation.
+   */
+  void subscribe(BiConsumer<Region, String> subscriber);
+
+  /**
+   * Stop receiving invalidations.
+   */
+  void close();
+}
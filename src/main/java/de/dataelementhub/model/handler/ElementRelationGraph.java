@@ -0,0 +1,139 @@
+package de.dataelementhub.model.handler;
+
+import static de.dataelementhub.dal.jooq.Tables.ELEMENT_RELATION;
+
+import de.dataelementhub.dal.jooq.enums.RelationType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+
+/**
+ * Element Relation Graph.
+ *
+ * <p>An immutable in-memory adjacency index of element relations for multi-hop lookups without
+ * database round trips. Urns are interned to int ids and the relations are kept as undirected
+ * edges in compressed sparse row form: the neighbours of id {@code i} are
+ * {@code neighbours[offsets[i]] .. neighbours[offsets[i + 1] - 1]}.
+ */
+public class ElementRelationGraph {
+
+  private static final int FETCH_SIZE = 10000;
+
+  private final Map<String, Integer> ids;
+  private final String[] urns;
+  private final int[] offsets;
+  private final int[] neighbours;
+
+  private ElementRelationGraph(Map<String, Integer> ids, String[] urns, int[] offsets,
+      int[] neighbours) {
+    this.ids = ids;
+    this.urns = urns;
+    this.offsets = offsets;
+    this.neighbours = neighbours;
+  }
+
+  /**
+   * Build the graph of all relations of the given types (all types if null). The relations are
+   * streamed from the database, so only the index itself is held in memory.
+   */
+  public static ElementRelationGraph build(DSLContext ctx, List<RelationType> relationTypes) {
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> urns = new ArrayList<>();
+    int[] edges = new int[1024];
+    int edgeCount = 0;
+    try (Stream<Record2<String, String>> relations = ctx
+        .select(ELEMENT_RELATION.LEFT_URN, ELEMENT_RELATION.RIGHT_URN)
+        .from(ELEMENT_RELATION)
+        .where(ElementRelationHandler.getCondition(null, relationTypes))
+        .fetchSize(FETCH_SIZE)
+        .fetchStream()) {
+      for (Record2<String, String> relation : (Iterable<Record2<String, String>>)
+          relations::iterator) {
+        if (edgeCount * 2 + 2 > edges.length) {
+          edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[edgeCount * 2] = intern(ids, urns, relation.value1());
+        edges[edgeCount * 2 + 1] = intern(ids, urns, relation.value2());
+        edgeCount++;
+      }
+    }
+    int[] offsets = new int[urns.size() + 1];
+    for (int i = 0; i < edgeCount * 2; i++) {
+      offsets[edges[i] + 1]++;
+    }
+    for (int i = 0; i < urns.size(); i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    int[] neighbours = new int[edgeCount * 2];
+    int[] next = Arrays.copyOf(offsets, urns.size());
+    for (int i = 0; i < edgeCount; i++) {
+      int left = edges[i * 2];
+      int right = edges[i * 2 + 1];
+      neighbours[next[left]++] = right;
+      neighbours[next[right]++] = left;
+    }
+    return new ElementRelationGraph(ids, urns.toArray(new String[0]), offsets, neighbours);
+  }
+
+  /**
+   * Get all elements that are transitively related to an element, with the smallest number of
+   * hops to reach them.
+   *
+   * @return the related urns (without the given urn) and their depth, ordered by depth
+   */
+  public Map<String, Integer> getRelatedTransitive(String urn, int maxDepth) {
+    if (maxDepth < 1 || maxDepth > ElementRelationHandler.MAX_TRANSITIVE_DEPTH) {
+      throw new IllegalArgumentException("Max depth must be between 1 and "
+          + ElementRelationHandler.MAX_TRANSITIVE_DEPTH + ".");
+    }
+    Map<String, Integer> related = new LinkedHashMap<>();
+    Integer start = ids.get(urn);
+    if (start == null) {
+      return related;
+    }
+    Map<Integer, Integer> depths = new HashMap<>();
+    depths.put(start, 0);
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      int id = queue.poll();
+      int depth = depths.get(id);
+      if (depth == maxDepth) {
+        continue;
+      }
+      for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+        int neighbour = neighbours[i];
+        if (depths.putIfAbsent(neighbour, depth + 1) == null) {
+          related.put(urns[neighbour], depth + 1);
+          queue.add(neighbour);
+        }
+      }
+    }
+    return related;
+  }
+
+  /**
+   * Returns the number of distinct urns in the graph.
+   */
+  public int size() {
+    return urns.length;
+  }
+
+  private static int intern(Map<String, Integer> ids, List<String> urns, String urn) {
+    Integer id = ids.get(urn);
+    if (id == null) {
+      id = urns.size();
+      ids.put(urn, id);
+      urns.add(urn);
+    }
+    return id;
+  }
+}
@@ -1,30 +1,40 @@
 package de.dataelementhub.model.handler;
 
 import static de.dataelementhub.dal.jooq.Tables.ELEMENT_RELATION;
-import static de.dataelementhub.dal.jooq.tables.Source.SOURCE;
 import static org.jooq.impl.DSL.trueCondition;
 
 import de.dataelementhub.dal.jooq.enums.RelationType;
 import de.dataelementhub.dal.jooq.tables.pojos.ElementRelation;
 import de.dataelementhub.dal.jooq.tables.pojos.Source;
 import de.dataelementhub.dal.jooq.tables.records.ElementRelationRecord;
-import de.dataelementhub.dal.jooq.tables.records.SourceRecord;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import de.dataelementhub.model.DaoUtil;
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jooq.CommonTableExpression;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.lambda.tuple.Tuple3;
-import org.simpleflatmapper.jdbc.JdbcMapper;
-import org.simpleflatmapper.jdbc.JdbcMapperFactory;
-import org.simpleflatmapper.util.TypeReference;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep6;
+import org.jooq.Record2;
+import org.jooq.Row4;
+import org.jooq.SelectSeekStep4;
+import org.jooq.impl.DSL;
 
 /**
  * Element Relation Handler.
  */
 public class ElementRelationHandler {
 
+  /** The maximum number of hops followed by {@link #getRelatedTransitive}. */
+  public static final int MAX_TRANSITIVE_DEPTH = 8;
+
   /**
    * Insert a new relation between two local elements.
    */
@@ -63,6 +73,7 @@ public class ElementRelationHandler {
 
     elementRelation.setCreatedBy(userId);
     ctx.newRecord(ELEMENT_RELATION, elementRelation).store();
+    publishInvalidation(ctx);
   }
 
   public static List<de.dataelementhub.model.dto.ElementRelation> getElementRelations(
@@ -88,85 +99,252 @@ public class ElementRelationHandler {
    */
   public static List<de.dataelementhub.model.dto.ElementRelation> getElementRelations(
       DSLContext ctx, String elementUrn, List<RelationType> relationTypes) {
-    de.dataelementhub.dal.jooq.tables.Source leftSourceTable = SOURCE.as("left_source");
-    de.dataelementhub.dal.jooq.tables.Source rightSourceTable = SOURCE.as("right_source");
-    List<de.dataelementhub.model.dto.ElementRelation> elementRelations = new ArrayList<>();
+    Map<Integer, Source> sources = getSourcesById(ctx);
+    return ctx.selectFrom(ELEMENT_RELATION)
+        .where(getCondition(elementUrn, relationTypes))
+        .fetch(elementRelationRecord -> toElementRelation(elementRelationRecord, sources));
+  }
 
-    Condition typeCondition = trueCondition();
-    Condition urnCondition = trueCondition();
+  /**
+   * Get one page of element relations, ordered by left urn, left source, right urn and right
+   * source. The next page starts after the last relation of the previous page (keyset
+   * pagination), so deep pages cost the same as the first one.
+   *
+   * @param elementUrn restrict to relations for one element or set to null for all
+   * @param relationTypes restrict to certain types of relation types or set to null for all
+   * @param after the last relation of the previous page or null for the first page
+   * @param limit the maximum number of relations of the page
+   */
+  public static List<de.dataelementhub.model.dto.ElementRelation> getElementRelations(
+      DSLContext ctx, String elementUrn, List<RelationType> relationTypes,
+      de.dataelementhub.model.dto.ElementRelation after, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    Map<Integer, Source> sources = getSourcesById(ctx);
+    SelectSeekStep4<ElementRelationRecord, String, Integer, String, Integer> ordered =
+        ctx.selectFrom(ELEMENT_RELATION)
+            .where(getCondition(elementUrn, relationTypes))
+            .orderBy(ELEMENT_RELATION.LEFT_URN, ELEMENT_RELATION.LEFT_SOURCE,
+                ELEMENT_RELATION.RIGHT_URN, ELEMENT_RELATION.RIGHT_SOURCE);
+    if (after == null) {
+      return ordered.limit(limit)
+          .fetch(elementRelationRecord -> toElementRelation(elementRelationRecord, sources));
+    }
+    return ordered.seek(after.getLeftUrn(), after.getLeftSource().getId(),
+            after.getRightUrn(), after.getRightSource().getId())
+        .limit(limit)
+        .fetch(elementRelationRecord -> toElementRelation(elementRelationRecord, sources));
+  }
 
-    if (relationTypes != null && !relationTypes.isEmpty()) {
-      typeCondition = ELEMENT_RELATION.RELATION.in(relationTypes);
+  /**
+   * Stream element relations without loading them into memory. Rows are fetched in chunks of
+   * fetchSize, which PostgreSQL only does with a server-side cursor inside a transaction. The
+   * stream holds an open cursor and must be closed.
+   *
+   * @param elementUrn restrict to relations for one element or set to null for all
+   * @param relationTypes restrict to certain types of relation types or set to null for all
+   */
+  public static Stream<de.dataelementhub.model.dto.ElementRelation> streamElementRelations(
+      DSLContext ctx, String elementUrn, List<RelationType> relationTypes, int fetchSize) {
+    Map<Integer, Source> sources = getSourcesById(ctx);
+    return ctx.selectFrom(ELEMENT_RELATION)
+        .where(getCondition(elementUrn, relationTypes))
+        .fetchSize(fetchSize)
+        .fetchStream()
+        .map(elementRelationRecord -> toElementRelation(elementRelationRecord, sources));
+  }
+
+  /**
+   * Get all elements that are transitively related to an element, with the smallest number of
+   * hops to reach them. Relations are followed in both directions by one recursive query. The
+   * query uses UNION on (urn, depth), so every urn is reached at most once per depth and the
+   * number of rows is bounded by the number of related urns times the maximum depth, also on
+   * cycles and dense clusters.
+   *
+   * @param relationTypes follow only these relation types or set to null for all
+   * @param maxDepth the maximum number of hops, at most {@link #MAX_TRANSITIVE_DEPTH}
+   * @return the related urns (without the given urn) and their depth, ordered by depth
+   */
+  public static Map<String, Integer> getRelatedTransitive(DSLContext ctx, String urn,
+      List<RelationType> relationTypes, int maxDepth) {
+    if (maxDepth < 1 || maxDepth > MAX_TRANSITIVE_DEPTH) {
+      throw new IllegalArgumentException(
+          "Max depth must be between 1 and " + MAX_TRANSITIVE_DEPTH + ".");
     }
+    Field<String> relatedUrn = DSL.field(DSL.name("related", "urn"), String.class);
+    Field<Integer> relatedDepth = DSL.field(DSL.name("related", "depth"), Integer.class);
+    Field<String> otherUrn = DSL.when(ELEMENT_RELATION.LEFT_URN.eq(relatedUrn),
+        ELEMENT_RELATION.RIGHT_URN).otherwise(ELEMENT_RELATION.LEFT_URN);
+    CommonTableExpression<Record2<String, Integer>> related =
+        DSL.name("related").fields("urn", "depth").as(
+            DSL.select(DSL.val(urn, ELEMENT_RELATION.LEFT_URN), DSL.val(0))
+                .union(DSL.select(otherUrn, relatedDepth.plus(1))
+                    .from(DSL.table(DSL.name("related")))
+                    .join(ELEMENT_RELATION)
+                    .on(ELEMENT_RELATION.LEFT_URN.eq(relatedUrn)
+                        .or(ELEMENT_RELATION.RIGHT_URN.eq(relatedUrn)))
+                    .where(getCondition(null, relationTypes))
+                    .and(relatedDepth.lt(maxDepth))));
+    Field<Integer> depth = DSL.min(relatedDepth);
+    Map<String, Integer> relatedUrns = new LinkedHashMap<>();
+    ctx.withRecursive(related)
+        .select(relatedUrn, depth)
+        .from(related)
+        .where(relatedUrn.ne(urn))
+        .groupBy(relatedUrn)
+        .orderBy(depth, relatedUrn)
+        .fetch()
+        .forEach(record -> relatedUrns.put(record.value1(), record.value2()));
+    return relatedUrns;
+  }
 
+  static Condition getCondition(String elementUrn, List<RelationType> relationTypes) {
+    Condition condition = trueCondition();
+    if (relationTypes != null && !relationTypes.isEmpty()) {
+      condition = condition.and(ELEMENT_RELATION.RELATION.in(relationTypes));
+    }
     if (elementUrn != null && !elementUrn.isEmpty()) {
-      urnCondition = ELEMENT_RELATION.LEFT_URN.eq(elementUrn)
-          .or(ELEMENT_RELATION.RIGHT_URN.eq(elementUrn));
+      condition = condition.and(ELEMENT_RELATION.LEFT_URN.eq(elementUrn)
+          .or(ELEMENT_RELATION.RIGHT_URN.eq(elementUrn)));
     }
+    return condition;
+  }
 
-    JdbcMapper<Tuple3<ElementRelationRecord, SourceRecord, SourceRecord>> mapper =
-        JdbcMapperFactory.newInstance()
-            .addKeys("left_source", "right_source")
-            .newMapper(
-                new TypeReference<Tuple3<ElementRelationRecord, SourceRecord, SourceRecord>>() {
-                });
-    try (ResultSet rs =
-        ctx
-            .select(
-                ELEMENT_RELATION.LEFT_URN,
-                ELEMENT_RELATION.RIGHT_URN,
-                ELEMENT_RELATION.RELATION,
-                ELEMENT_RELATION.CREATED_AT,
-                ELEMENT_RELATION.CREATED_BY,
-                leftSourceTable.ID,
-                leftSourceTable.TYPE,
-                leftSourceTable.NAME,
-                leftSourceTable.PREFIX,
-                leftSourceTable.BASE_URL,
-                rightSourceTable.ID,
-                rightSourceTable.TYPE,
-                rightSourceTable.NAME,
-                rightSourceTable.PREFIX,
-                rightSourceTable.BASE_URL)
-            .from(ELEMENT_RELATION)
-            .leftJoin(leftSourceTable)
-            .on(leftSourceTable.ID.eq(ELEMENT_RELATION.LEFT_SOURCE))
-            .leftJoin(rightSourceTable)
-            .on(rightSourceTable.ID.eq(ELEMENT_RELATION.RIGHT_SOURCE))
-            .where(urnCondition)
-            .and(typeCondition)
-            .fetchResultSet()) {
-
-      mapper.stream(rs).forEach(t3 -> {
-        Source leftSource = new Source();
-        leftSource.setId(t3.v2().getId());
-        leftSource.setType(t3.v2().getType());
-        leftSource.setName(t3.v2().getName());
-        leftSource.setPrefix(t3.v2().getPrefix());
-        leftSource.setBaseUrl(t3.v2().getBaseUrl());
-
-        Source rightSource = new Source();
-        rightSource.setId(t3.v3().getId());
-        rightSource.setType(t3.v3().getType());
-        rightSource.setName(t3.v3().getName());
-        rightSource.setPrefix(t3.v3().getPrefix());
-        rightSource.setBaseUrl(t3.v3().getBaseUrl());
-
-        de.dataelementhub.model.dto.ElementRelation elementRelation =
-            new de.dataelementhub.model.dto.ElementRelation();
-        elementRelation.setLeftUrn(t3.v1().getLeftUrn());
-        elementRelation.setLeftSource(leftSource);
-        elementRelation.setRightUrn(t3.v1().getRightUrn());
-        elementRelation.setRightSource(rightSource);
-        elementRelation.setRelation(t3.v1().getRelation());
-        elementRelation.setCreatedAt(t3.v1().getCreatedAt());
-        elementRelation.setCreatedBy(t3.v1().getCreatedBy());
-        elementRelations.add(elementRelation);
-      });
-    } catch (SQLException e) {
-      e.printStackTrace();
+  /**
+   * Returns all sources by their id. There are only a few sources, so they are read once per
+   * call instead of being joined to every relation twice.
+   */
+  private static Map<Integer, Source> getSourcesById(DSLContext ctx) {
+    return SourceHandler.getSources(ctx).stream()
+        .collect(Collectors.toMap(Source::getId, Function.identity()));
+  }
+
+  private static de.dataelementhub.model.dto.ElementRelation toElementRelation(
+      ElementRelationRecord elementRelationRecord, Map<Integer, Source> sources) {
+    de.dataelementhub.model.dto.ElementRelation elementRelation =
+        new de.dataelementhub.model.dto.ElementRelation();
+    elementRelation.setLeftUrn(elementRelationRecord.getLeftUrn());
+    elementRelation.setLeftSource(sources.get(elementRelationRecord.getLeftSource()));
+    elementRelation.setRightUrn(elementRelationRecord.getRightUrn());
+    elementRelation.setRightSource(sources.get(elementRelationRecord.getRightSource()));
+    elementRelation.setRelation(elementRelationRecord.getRelation());
+    elementRelation.setCreatedAt(elementRelationRecord.getCreatedAt());
+    elementRelation.setCreatedBy(elementRelationRecord.getCreatedBy());
+    return elementRelation;
+  }
+
+  /**
+   * Insert or update element relations with multi-row statements of {@link DaoUtil#BATCH_SIZE}
+   * rows.
+   *
+   * @return the number of inserted or updated relations
+   */
+  public static int upsertRelations(DSLContext ctx, int userId,
+      List<ElementRelation> elementRelations) {
+    return upsertRelations(ctx, userId, elementRelations, DaoUtil.BATCH_SIZE);
+  }
+
+  /**
+   * Insert or update element relations with multi-row statements of chunkSize rows. A relation
+   * between the same urns and sources that already exists gets the new relation type. If the
+   * given relations contain the same urns and sources more than once, the last one is used.
+   *
+   * @return the number of inserted or updated relations
+   */
+  public static int upsertRelations(DSLContext ctx, int userId,
+      List<ElementRelation> elementRelations, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive.");
+    }
+    // Postgres rejects an upsert that affects the same row twice, so duplicate keys are dropped
+    Map<List<Object>, ElementRelation> unique = new LinkedHashMap<>();
+    elementRelations.forEach(elementRelation -> unique.put(Arrays.asList(
+        elementRelation.getLeftUrn(), elementRelation.getLeftSource(),
+        elementRelation.getRightUrn(), elementRelation.getRightSource()), elementRelation));
+    List<ElementRelation> upserts = new ArrayList<>(unique.values());
+    int count = 0;
+    for (int i = 0; i < upserts.size(); i += chunkSize) {
+      InsertValuesStep6<ElementRelationRecord, String, Integer, String, Integer, RelationType,
+          Integer> insert = ctx.insertInto(ELEMENT_RELATION, ELEMENT_RELATION.LEFT_URN,
+          ELEMENT_RELATION.LEFT_SOURCE, ELEMENT_RELATION.RIGHT_URN,
+          ELEMENT_RELATION.RIGHT_SOURCE, ELEMENT_RELATION.RELATION,
+          ELEMENT_RELATION.CREATED_BY);
+      for (ElementRelation elementRelation : upserts
+          .subList(i, Math.min(i + chunkSize, upserts.size()))) {
+        insert = insert.values(elementRelation.getLeftUrn(), elementRelation.getLeftSource(),
+            elementRelation.getRightUrn(), elementRelation.getRightSource(),
+            elementRelation.getRelation(), userId);
+      }
+      count += insert
+          .onConflict(ELEMENT_RELATION.LEFT_URN, ELEMENT_RELATION.LEFT_SOURCE,
+              ELEMENT_RELATION.RIGHT_URN, ELEMENT_RELATION.RIGHT_SOURCE)
+          .doUpdate()
+          .set(ELEMENT_RELATION.RELATION, DSL.excluded(ELEMENT_RELATION.RELATION))
+          .execute();
     }
-    return elementRelations;
+    publishInvalidation(ctx);
+    return count;
+  }
+
+  /**
+   * Delete the given element relations with multi-row statements of {@link DaoUtil#BATCH_SIZE}
+   * rows.
+   *
+   * @return the number of deleted relations
+   */
+  public static int deleteRelations(DSLContext ctx, int userId,
+      List<ElementRelation> elementRelations) {
+    return deleteRelations(ctx, userId, elementRelations, DaoUtil.BATCH_SIZE);
+  }
+
+  /**
+   * Delete the given element relations with multi-row statements of chunkSize rows. Relations
+   * are matched by their urns and sources.
+   *
+   * @return the number of deleted relations
+   */
+  public static int deleteRelations(DSLContext ctx, int userId,
+      List<ElementRelation> elementRelations, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive.");
+    }
+    int count = 0;
+    for (int i = 0; i < elementRelations.size(); i += chunkSize) {
+      List<Row4<String, Integer, String, Integer>> keys = elementRelations
+          .subList(i, Math.min(i + chunkSize, elementRelations.size())).stream()
+          .map(elementRelation -> DSL.row(elementRelation.getLeftUrn(),
+              elementRelation.getLeftSource(), elementRelation.getRightUrn(),
+              elementRelation.getRightSource()))
+          .collect(Collectors.toList());
+      count += ctx.deleteFrom(ELEMENT_RELATION)
+          .where(DSL.row(ELEMENT_RELATION.LEFT_URN, ELEMENT_RELATION.LEFT_SOURCE,
+              ELEMENT_RELATION.RIGHT_URN, ELEMENT_RELATION.RIGHT_SOURCE).in(keys))
+          .execute();
+    }
+    publishInvalidation(ctx);
+    return count;
+  }
+
+  /**
+   * Delete all element relations of an element and/or of certain relation types with one
+   * statement. At least one filter is required.
+   *
+   * @param elementUrn restrict to relations for one element or set to null for all
+   * @param relationTypes restrict to certain types of relation types or set to null for all
+   * @return the number of deleted relations
+   */
+  public static int deleteRelations(DSLContext ctx, int userId, String elementUrn,
+      List<RelationType> relationTypes) {
+    if ((elementUrn == null || elementUrn.isEmpty())
+        && (relationTypes == null || relationTypes.isEmpty())) {
+      throw new IllegalArgumentException("Deleting relations requires an urn or relation type.");
+    }
+    int count = ctx.deleteFrom(ELEMENT_RELATION)
+        .where(getCondition(elementUrn, relationTypes))
+        .execute();
+    publishInvalidation(ctx);
+    return count;
   }
 
   /**
@@ -183,6 +361,7 @@ public class ElementRelationHandler {
         .and(ELEMENT_RELATION.LEFT_SOURCE.eq(elementRelation.getLeftSource()))
         .and(ELEMENT_RELATION.RIGHT_SOURCE.eq(elementRelation.getRightSource()))
         .execute();
+    publishInvalidation(ctx);
     return count > 0;
   }
 
@@ -199,6 +378,14 @@ public class ElementRelationHandler {
         .and(ELEMENT_RELATION.LEFT_SOURCE.eq(elementRelation.getLeftSource()))
         .and(ELEMENT_RELATION.RIGHT_SOURCE.eq(elementRelation.getRightSource()))
         .execute();
+    publishInvalidation(ctx);
     return count > 0;
   }
+
+  /**
+   * Publish that relations changed, so the relation graphs of all nodes are rebuilt.
+   */
+  private static void publishInvalidation(DSLContext ctx) {
+    CacheInvalidationBus.publish(ctx, Region.RELATION, null);
+  }
 }
@@ -0,0 +1,33 @@
+package de.dataelementhub.model.handler;
+
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import org.jooq.DSLContext;
+
+/**
+ * Loopback Invalidation Channel.
+ *
+ * <p>Delivers invalidations to the subscribers of this process only. Used for single node
+ * deployments and tests.
+ */
+public class LoopbackInvalidationChannel implements CacheInvalidationChannel {
+
+  private final List<BiConsumer<Region, String>> subscribers = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(DSLContext ctx, Region region, String key) {
+    subscribers.forEach(subscriber -> subscriber.accept(region, key));
+  }
+
+  @Override
+  public void subscribe(BiConsumer<Region, String> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  @Override
+  public void close() {
+    subscribers.clear();
+  }
+}
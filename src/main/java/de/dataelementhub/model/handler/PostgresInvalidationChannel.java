@@ -0,0 +1,129 @@
+package de.dataelementhub.model.handler;
+
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Postgres Invalidation Channel.
+ *
+ * <p>Sends invalidations to the other nodes with {@code pg_notify} and receives theirs on a
+ * dedicated connection that listens to the channel. Notifications are sent in the transaction of
+ * the write, so nodes only evict committed changes. This includes the publishing node, which
+ * receives its own notifications like all others: evicting before the commit would let a
+ * concurrent read cache the old state again. Whole regions are invalidated
+ * whenever the channel starts listening, including the first time, since notifications sent
+ * before may have been missed.
+ */
+@Slf4j
+public class PostgresInvalidationChannel implements CacheInvalidationChannel {
+
+  public static final String CHANNEL = "dehub_cache_invalidation";
+  private static final int POLL_TIMEOUT_IN_MILLIS = 1000;
+  private static final long RETRY_DELAY_IN_MILLIS = 5000;
+
+  private final DataSource dataSource;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final List<BiConsumer<Region, String>> subscribers = new CopyOnWriteArrayList<>();
+  private final Thread listener;
+  private final CountDownLatch listening = new CountDownLatch(1);
+  private volatile boolean running = true;
+
+  /**
+   * Create a channel that listens on a connection of this data source.
+   */
+  public PostgresInvalidationChannel(DataSource dataSource) {
+    this.dataSource = dataSource;
+    listener = new Thread(this::listen, "dehub-cache-invalidation");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @Override
+  public void publish(DSLContext ctx, Region region, String key) {
+    ctx.execute("SELECT pg_notify({0}, {1})", DSL.val(CHANNEL),
+        DSL.val(nodeId + '\t' + region + '\t' + (key != null ? key : "")));
+  }
+
+  @Override
+  public void subscribe(BiConsumer<Region, String> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Wait until the channel listens for notifications for the first time.
+   *
+   * @return true if the channel listens, false if the timeout elapsed
+   */
+  public boolean awaitListening(long timeout, TimeUnit unit) throws InterruptedException {
+    return listening.await(timeout, unit);
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    listener.interrupt();
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = dataSource.getConnection();
+          Statement statement = connection.createStatement()) {
+        statement.execute("LISTEN " + CHANNEL);
+        for (Region region : Region.values()) {
+          deliver(region, null);
+        }
+        listening.countDown();
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_IN_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              receive(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("Listening for cache invalidations failed, reconnecting", e);
+        try {
+          Thread.sleep(RETRY_DELAY_IN_MILLIS);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void receive(String payload) {
+    String[] parts = payload.split("\t", 3);
+    // parts[0] is the publishing node
+    if (parts.length != 3) {
+      return;
+    }
+    try {
+      deliver(Region.valueOf(parts[1]), parts[2].isEmpty() ? null : parts[2]);
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring cache invalidation of unknown region " + parts[1]);
+    }
+  }
+
+  private void deliver(Region region, String key) {
+    subscribers.forEach(subscriber -> subscriber.accept(region, key));
+  }
+}
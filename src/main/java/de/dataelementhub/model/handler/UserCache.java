@@ -0,0 +1,163 @@
+package de.dataelementhub.model.handler;
+
+import de.dataelementhub.dal.jooq.tables.pojos.DehubUser;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User Cache.
+ *
+ * <p>Caches users by auth id and by database id for a limited time, so resolving the user of a
+ * request does not hit the database every time. Entries are evicted when a user is saved, and
+ * the least recently used user is dropped once the cache exceeds its maximum size. Callers get
+ * copies, so changing a returned user does not change the cached one.
+ *
+ * <p>Every eviction increases the generation of the cache. A user read from the database is
+ * only cached if no eviction happened since the read started, so a concurrent save can not be
+ * undone by caching the user it replaced.
+ */
+public class UserCache {
+
+  private static final Map<Integer, Entry> BY_ID = new LinkedHashMap<>(16, 0.75f, true);
+  private static final Map<String, Entry> BY_AUTH_ID = new HashMap<>();
+  private static long generation;
+  private static volatile long ttlInMillis = TimeUnit.MINUTES.toMillis(5);
+  private static volatile int maxSize = 10000;
+
+  /**
+   * Set how long users are cached. A ttl of 0 disables the cache.
+   */
+  public static void setTtl(long ttl, TimeUnit unit) {
+    ttlInMillis = unit.toMillis(ttl);
+    clear();
+  }
+
+  /**
+   * Set the maximum number of cached users.
+   */
+  public static synchronized void setMaxSize(int maxSize) {
+    UserCache.maxSize = maxSize;
+    trim();
+  }
+
+  /**
+   * Returns the current generation, to be passed to {@link #put} with the user read afterwards.
+   */
+  public static synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Returns the cached user with this auth id or null.
+   */
+  public static synchronized DehubUser getByAuthId(String authId) {
+    Entry entry = BY_AUTH_ID.get(authId);
+    if (entry != null && entry.user.getId() != null) {
+      // Mark the user as recently used
+      BY_ID.get(entry.user.getId());
+    }
+    return copy(entry);
+  }
+
+  /**
+   * Returns the cached user with this database id or null.
+   */
+  public static synchronized DehubUser getById(int id) {
+    return copy(BY_ID.get(id));
+  }
+
+  /**
+   * Cache a user under its auth id and database id, unless the cache was evicted since the
+   * given generation.
+   */
+  public static synchronized void put(DehubUser user, long readGeneration) {
+    if (user == null || user.getId() == null || ttlInMillis <= 0 || maxSize <= 0
+        || readGeneration != generation) {
+      return;
+    }
+    Entry entry = new Entry(new DehubUser(user), System.currentTimeMillis() + ttlInMillis);
+    remove(BY_ID.put(user.getId(), entry), entry);
+    if (user.getAuthId() != null) {
+      remove(BY_AUTH_ID.put(user.getAuthId(), entry), entry);
+    }
+    trim();
+  }
+
+  /**
+   * Remove a user from the cache.
+   */
+  public static synchronized void evict(String authId, Integer id) {
+    generation++;
+    if (authId != null) {
+      remove(BY_AUTH_ID.get(authId), null);
+    }
+    if (id != null) {
+      remove(BY_ID.get(id), null);
+    }
+  }
+
+  /**
+   * Remove all users from the cache.
+   */
+  public static synchronized void clear() {
+    generation++;
+    BY_AUTH_ID.clear();
+    BY_ID.clear();
+  }
+
+  /**
+   * Drop the least recently used users until the cache fits its maximum size.
+   */
+  private static void trim() {
+    Iterator<Entry> entries = BY_ID.values().iterator();
+    while (BY_ID.size() > Math.max(0, maxSize) && entries.hasNext()) {
+      Entry entry = entries.next();
+      entries.remove();
+      if (entry.user.getAuthId() != null) {
+        BY_AUTH_ID.remove(entry.user.getAuthId(), entry);
+      }
+    }
+  }
+
+  /**
+   * Remove both index entries of a cached user, unless they already point to the replacement.
+   */
+  private static void remove(Entry entry, Entry replacement) {
+    if (entry == null || entry == replacement) {
+      return;
+    }
+    if (entry.user.getId() != null) {
+      BY_ID.remove(entry.user.getId(), entry);
+    }
+    if (entry.user.getAuthId() != null) {
+      BY_AUTH_ID.remove(entry.user.getAuthId(), entry);
+    }
+  }
+
+  private static DehubUser copy(Entry entry) {
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt < System.currentTimeMillis()) {
+      remove(entry, null);
+      return null;
+    }
+    return new DehubUser(entry.user);
+  }
+
+  /**
+   * A cached user and the time it expires.
+   */
+  private static class Entry {
+    private final DehubUser user;
+    private final long expiresAt;
+
+    private Entry(DehubUser user, long expiresAt) {
+      this.user = user;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
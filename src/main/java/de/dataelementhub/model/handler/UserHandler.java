@@ -10,8 +10,14 @@ import de.dataelementhub.dal.jooq.tables.pojos.UserNamespaceAccess;
 import de.dataelementhub.dal.jooq.tables.records.DehubUserRecord;
 import de.dataelementhub.dal.jooq.tables.records.IdentifiedElementRecord;
 import de.dataelementhub.dal.jooq.tables.records.UserNamespaceAccessRecord;
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
 import de.dataelementhub.model.handler.element.NamespaceHandler;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import org.jooq.DSLContext;
 
 /**
@@ -28,8 +34,16 @@ public class UserHandler {
       anon.setId(-1);
       return anon;
     }
+    DehubUser cached = UserCache.getByAuthId(identity);
+    if (cached != null) {
+      return cached;
+    }
+    long generation = UserCache.generation();
     try {
-      return ctx.fetchOne(DEHUB_USER, DEHUB_USER.AUTH_ID.equal(identity)).into(DehubUser.class);
+      DehubUser user =
+          ctx.fetchOne(DEHUB_USER, DEHUB_USER.AUTH_ID.equal(identity)).into(DehubUser.class);
+      UserCache.put(user, generation);
+      return user;
     } catch (NullPointerException npe) {
       return null;
     }
@@ -50,7 +64,38 @@ public class UserHandler {
    * Get a user by database id.
    */
   public static DehubUser getUserById(DSLContext ctx, int userId) {
-    return ctx.fetchOne(DEHUB_USER, DEHUB_USER.ID.equal(userId)).into(DehubUser.class);
+    DehubUser cached = UserCache.getById(userId);
+    if (cached != null) {
+      return cached;
+    }
+    long generation = UserCache.generation();
+    DehubUser user = ctx.fetchOne(DEHUB_USER, DEHUB_USER.ID.equal(userId)).into(DehubUser.class);
+    UserCache.put(user, generation);
+    return user;
+  }
+
+  /**
+   * Get users by database ids. Users that are not cached are read with one query.
+   */
+  public static Map<Integer, DehubUser> getUsersById(DSLContext ctx, Collection<Integer> userIds) {
+    Map<Integer, DehubUser> users = new HashMap<>();
+    List<Integer> missing = new ArrayList<>();
+    for (Integer userId : new HashSet<>(userIds)) {
+      DehubUser cached = UserCache.getById(userId);
+      if (cached != null) {
+        users.put(userId, cached);
+      } else {
+        missing.add(userId);
+      }
+    }
+    if (!missing.isEmpty()) {
+      long generation = UserCache.generation();
+      ctx.fetch(DEHUB_USER, DEHUB_USER.ID.in(missing)).into(DehubUser.class).forEach(user -> {
+        UserCache.put(user, generation);
+        users.put(user.getId(), user);
+      });
+    }
+    return users;
   }
 
   /**
@@ -59,6 +104,9 @@ public class UserHandler {
   public static int saveUser(DSLContext ctx, DehubUser dehubUser) {
     DehubUserRecord dehubUserRecord = ctx.newRecord(DEHUB_USER, dehubUser);
     dehubUserRecord.store();
+    // The auth id may have changed, so the user is also evicted by its id
+    CacheInvalidationBus.publish(ctx, Region.USER, dehubUserRecord.getAuthId());
+    CacheInvalidationBus.publish(ctx, Region.USER_ID, String.valueOf(dehubUserRecord.getId()));
     return dehubUserRecord.getId();
   }
 
@@ -75,6 +123,7 @@ public class UserHandler {
         .set(DEHUB_USER.USER_NAME, dehubUser.getUserName())
         .set(DEHUB_USER.EMAIL, dehubUser.getEmail())
         .where(DEHUB_USER.AUTH_ID.eq(dehubUser.getAuthId())).execute();
+    CacheInvalidationBus.publish(ctx, Region.USER, dehubUser.getAuthId());
   }
 
   public static DehubUser createDefaultUser(DSLContext ctx, String authId, String email,
@@ -121,6 +170,8 @@ public class UserHandler {
           .and(USER_NAMESPACE_ACCESS.NAMESPACE_ID.eq(namespaceRecord.getId()))
           .execute();
     }
+    CacheInvalidationBus.publish(ctx, Region.ACCESS_LEVEL,
+        String.valueOf(namespaceRecord.getId()));
   }
 
   /**
@@ -135,6 +186,8 @@ public class UserHandler {
         .where(USER_NAMESPACE_ACCESS.USER_ID.eq(userId))
         .and(USER_NAMESPACE_ACCESS.NAMESPACE_ID.eq(namespaceRecord.getId()))
         .execute();
+    CacheInvalidationBus.publish(ctx, Region.ACCESS_LEVEL,
+        String.valueOf(namespaceRecord.getId()));
   }
 
 }
@@ -30,9 +30,19 @@ public class DataElementGroupHandler extends ElementHandler {
    */
   public static DataElementGroup get(
       DSLContext ctx, int userId, Identification identification) {
+    return get(ctx, userId, identification, null);
+  }
+
+  /**
+   * Get a dataelementgroup with only the definitions in the requested languages
+   * (Accept-Language style, null for all languages).
+   */
+  public static DataElementGroup get(
+      DSLContext ctx, int userId, Identification identification, String languages) {
     IdentifiedElementRecord identifiedElementRecord = ElementHandler
         .getIdentifiedElementRecord(ctx, identification);
-    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord);
+    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord,
+        languages);
 
     DataElementGroup newDataElementGroup = new DataElementGroup();
     newDataElementGroup.setIdentification(identification);
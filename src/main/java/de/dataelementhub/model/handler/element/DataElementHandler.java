@@ -166,10 +166,20 @@ public class DataElementHandler extends ElementHandler {
    */
   public static DataElement get(
       DSLContext ctx, int userId, Identification identification) {
+    return get(ctx, userId, identification, null);
+  }
+
+  /**
+   * Get a dataelement with only the definitions in the requested languages
+   * (Accept-Language style, null for all languages).
+   */
+  public static DataElement get(
+      DSLContext ctx, int userId, Identification identification, String languages) {
     String urn = identification.getUrn();
     IdentifiedElementRecord identifiedElementRecord = ElementHandler
         .getIdentifiedElementRecord(ctx, identification);
-    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord);
+    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord,
+        languages);
 
     DataElement dataElement = new DataElement();
     dataElement.setIdentification(element.getIdentification());
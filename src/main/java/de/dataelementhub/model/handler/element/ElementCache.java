@@ -0,0 +1,357 @@
+package de.dataelementhub.model.handler.element;
+
+import de.dataelementhub.dal.jooq.enums.ElementType;
+import de.dataelementhub.dal.jooq.enums.RelationType;
+import de.dataelementhub.dal.jooq.enums.Status;
+import de.dataelementhub.model.dto.element.DataElement;
+import de.dataelementhub.model.dto.element.DataElementGroup;
+import de.dataelementhub.model.dto.element.Element;
+import de.dataelementhub.model.dto.element.Namespace;
+import de.dataelementhub.model.dto.element.Record;
+import de.dataelementhub.model.dto.element.section.ConceptAssociation;
+import de.dataelementhub.model.dto.element.section.Definition;
+import de.dataelementhub.model.dto.element.section.Identification;
+import de.dataelementhub.model.dto.element.section.Member;
+import de.dataelementhub.model.dto.element.section.Slot;
+import de.dataelementhub.model.dto.element.section.ValueDomain;
+import de.dataelementhub.model.dto.element.section.validation.Datetime;
+import de.dataelementhub.model.dto.element.section.validation.Numeric;
+import de.dataelementhub.model.dto.element.section.validation.NumericFloat;
+import de.dataelementhub.model.dto.element.section.validation.NumericInteger;
+import de.dataelementhub.model.dto.element.section.validation.PermittedValue;
+import de.dataelementhub.model.dto.element.section.validation.Text;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputFilter.FilterInfo;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Element Cache.
+ *
+ * <p>Caches hydrated elements by urn. Only released and outdated elements are cached: a change of
+ * such an element always creates a new revision with a new urn, so only their status can change
+ * for a given urn. Elements are kept in serialized form, which gives every caller its own copy and
+ * the size of an element in bytes as its weight. The least recently used elements are evicted
+ * once the cache holds more elements or bytes than allowed. The cache holds no access rights,
+ * callers have to check the access of the user to the namespace of the element on every request.
+ *
+ * <p>Every eviction increases the generation of the cache and is remembered for the evicted urn.
+ * An element read from the database is only cached if neither it nor one of its members was
+ * evicted since the read started, so a concurrent status change can not be undone by caching
+ * the element read before it. Only the most recent evictions are remembered per urn, older ones
+ * reject all reads started before them.
+ *
+ * <p>If the {@link ElementSnapshotStore} is open, elements are kept there instead of on the heap.
+ * Elements that can not be decoded any more are treated as not cached and evicted.
+ *
+ * <p>Cached elements are decoded with a filter that only accepts the element classes, the enums
+ * of their fields, boxed primitives and lists, and limits the depth, the number of objects and
+ * the size of a decoded element. A damaged or crafted snapshot file can not instantiate other
+ * classes.
+ */
+@Slf4j
+public class ElementCache {
+
+  private static final List<Class<?>> SERIALIZED_CLASSES = Arrays.asList(Element.class,
+      Namespace.class, DataElement.class, DataElementGroup.class, Record.class,
+      Identification.class, Definition.class, Slot.class, ConceptAssociation.class, Member.class,
+      ValueDomain.class, Text.class, Numeric.class, NumericFloat.class, NumericInteger.class,
+      Datetime.class, PermittedValue.class);
+
+  private static final Set<String> DECODABLE_CLASSES = Stream.concat(Stream.concat(
+      SERIALIZED_CLASSES.stream().map(Class::getName),
+      Stream.of(Status.class, ElementType.class, RelationType.class).map(Class::getName)),
+      Stream.of("java.lang.Object", "java.lang.Enum", "java.lang.Number", "java.lang.String",
+          "java.lang.Boolean", "java.lang.Integer", "java.lang.Long", "java.lang.Double",
+          "java.util.ArrayList", "java.util.LinkedList", "java.util.Arrays$ArrayList",
+          "java.util.Collections$EmptyList", "java.util.Collections$SingletonList",
+          "java.util.Collections$UnmodifiableCollection",
+          "java.util.Collections$UnmodifiableList",
+          "java.util.Collections$UnmodifiableRandomAccessList", "java.util.CollSer"))
+      .collect(Collectors.toSet());
+  private static final int MAX_DECODED_DEPTH = 32;
+  private static final long MAX_DECODED_OBJECTS = 1_000_000;
+  private static final long MAX_DECODED_BYTES = 64L * 1024 * 1024;
+
+  private static final int MAX_REMEMBERED_EVICTIONS = 4096;
+
+  private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+  private static final Map<String, Long> EVICTED_AT = new LinkedHashMap<>();
+  private static int maxSize = 10000;
+  private static long maxWeightInBytes = 64L * 1024 * 1024;
+  private static long weightInBytes;
+  private static long generation;
+  private static long forgottenGeneration;
+
+  /**
+   * Set the number of elements after which the least recently used elements are evicted.
+   */
+  public static synchronized void setMaxSize(int maxSize) {
+    ElementCache.maxSize = maxSize;
+    evictLeastRecentlyUsed();
+  }
+
+  /**
+   * Set the size in bytes after which the least recently used elements are evicted. A weight of 0
+   * disables the cache.
+   */
+  public static synchronized void setMaxWeightInBytes(long maxWeightInBytes) {
+    ElementCache.maxWeightInBytes = maxWeightInBytes;
+    evictLeastRecentlyUsed();
+  }
+
+  /**
+   * Returns true if an element in this status can be cached.
+   */
+  public static boolean isCacheable(Status status) {
+    return status == Status.RELEASED || status == Status.OUTDATED;
+  }
+
+  /**
+   * Returns a copy of the cached element with this urn read with these languages or null.
+   */
+  public static Element get(String urn, String languages) {
+    byte[] serialized;
+    synchronized (ElementCache.class) {
+      Entry entry = ENTRIES.get(urn);
+      serialized = entry != null ? entry.variants.get(languageKey(languages)) : null;
+    }
+    try {
+      if (serialized != null) {
+        return deserialize(new ByteArrayInputStream(serialized));
+      }
+      return ElementSnapshotStore.isOpen()
+          ? ElementSnapshotStore.get(urn, languageKey(languages), ElementCache::deserialize)
+          : null;
+    } catch (RuntimeException e) {
+      log.warn("Evicting cached element " + urn + " that can not be decoded", e);
+      evict(urn);
+      return null;
+    }
+  }
+
+  /**
+   * Returns a fingerprint of the serialized form of all element classes. It changes whenever one
+   * of these classes changes in a way that affects serialization.
+   */
+  public static long fingerprint() {
+    long fingerprint = 1;
+    for (Class<?> serializedClass : SERIALIZED_CLASSES) {
+      fingerprint = 31 * fingerprint
+          + ObjectStreamClass.lookupAny(serializedClass).getSerialVersionUID();
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Returns the current generation, to be passed to {@link #put} with the element read
+   * afterwards.
+   */
+  public static synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Cache an element read with these languages, unless it or one of its members was evicted
+   * since the given generation. Elements that are not released or outdated and elements that
+   * are larger than the decoding limit are ignored.
+   */
+  public static void put(String urn, String languages, Element element, long readGeneration) {
+    if (element == null || element.getIdentification() == null
+        || !isCacheable(element.getIdentification().getStatus())) {
+      return;
+    }
+    Set<String> references = references(element);
+    byte[] serialized = serialize(element);
+    synchronized (ElementCache.class) {
+      if (serialized.length > Math.min(maxWeightInBytes, MAX_DECODED_BYTES) || maxSize <= 0
+          || evictedSince(urn, references, readGeneration)) {
+        return;
+      }
+      if (ElementSnapshotStore.isOpen()) {
+        ElementSnapshotStore.put(urn, languageKey(languages), references, serialized);
+        return;
+      }
+      Entry entry = ENTRIES.computeIfAbsent(urn, u -> new Entry(references));
+      byte[] previous = entry.variants.put(languageKey(languages), serialized);
+      weightInBytes += serialized.length - (previous != null ? previous.length : 0);
+      evictLeastRecentlyUsed();
+    }
+  }
+
+  /**
+   * Remove an element and all elements listing it as a member from the cache.
+   */
+  public static synchronized void evict(String urn) {
+    if (urn == null) {
+      return;
+    }
+    EVICTED_AT.remove(urn);
+    EVICTED_AT.put(urn, ++generation);
+    Iterator<Long> evictions = EVICTED_AT.values().iterator();
+    while (EVICTED_AT.size() > MAX_REMEMBERED_EVICTIONS) {
+      forgottenGeneration = evictions.next();
+      evictions.remove();
+    }
+    remove(ENTRIES.remove(urn));
+    Iterator<Entry> entries = ENTRIES.values().iterator();
+    while (entries.hasNext()) {
+      Entry entry = entries.next();
+      if (entry.references.contains(urn)) {
+        entries.remove();
+        remove(entry);
+      }
+    }
+    ElementSnapshotStore.evict(urn);
+  }
+
+  /**
+   * Remove all elements from the cache.
+   */
+  public static synchronized void clear() {
+    forgottenGeneration = ++generation;
+    EVICTED_AT.clear();
+    ENTRIES.clear();
+    weightInBytes = 0;
+    ElementSnapshotStore.clear();
+  }
+
+  /**
+   * Returns true if the element or one of its references was evicted after the given generation.
+   */
+  private static boolean evictedSince(String urn, Set<String> references, long readGeneration) {
+    if (readGeneration < forgottenGeneration
+        || EVICTED_AT.getOrDefault(urn, 0L) > readGeneration) {
+      return true;
+    }
+    return references.stream()
+        .anyMatch(reference -> EVICTED_AT.getOrDefault(reference, 0L) > readGeneration);
+  }
+
+  private static void evictLeastRecentlyUsed() {
+    Iterator<Entry> entries = ENTRIES.values().iterator();
+    while (entries.hasNext() && (ENTRIES.size() > maxSize || weightInBytes > maxWeightInBytes)) {
+      Entry entry = entries.next();
+      entries.remove();
+      remove(entry);
+    }
+  }
+
+  private static void remove(Entry entry) {
+    if (entry != null) {
+      entry.variants.values().forEach(serialized -> weightInBytes -= serialized.length);
+    }
+  }
+
+  private static String languageKey(String languages) {
+    return String.join(",", Element.parseLanguages(languages));
+  }
+
+  /**
+   * Returns the urns of the elements that are part of this element: the members of groups and
+   * records, the value domain of data elements and the permitted values of enumerated value
+   * domains.
+   */
+  private static Set<String> references(Element element) {
+    Set<String> references = new HashSet<>();
+    List<Member> members = null;
+    if (element instanceof DataElementGroup) {
+      members = ((DataElementGroup) element).getMembers();
+    } else if (element instanceof Record) {
+      members = ((Record) element).getMembers();
+    } else if (element instanceof DataElement) {
+      DataElement dataElement = (DataElement) element;
+      if (dataElement.getValueDomainUrn() != null) {
+        references.add(dataElement.getValueDomainUrn());
+      }
+      if (dataElement.getValueDomain() != null) {
+        references.addAll(references(dataElement.getValueDomain()));
+      }
+    } else if (element instanceof ValueDomain
+        && ((ValueDomain) element).getPermittedValues() != null) {
+      for (PermittedValue permittedValue : ((ValueDomain) element).getPermittedValues()) {
+        if (permittedValue.getIdentification() != null
+            && permittedValue.getIdentification().getUrn() != null) {
+          references.add(permittedValue.getIdentification().getUrn());
+        } else if (permittedValue.getUrn() != null) {
+          references.add(permittedValue.getUrn());
+        }
+      }
+    }
+    if (members != null) {
+      members.forEach(member -> references.add(member.getElementUrn()));
+    }
+    return references.isEmpty() ? Collections.emptySet() : references;
+  }
+
+  private static byte[] serialize(Element element) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+      outputStream.writeObject(element);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Element deserialize(InputStream serialized) {
+    try (ObjectInputStream inputStream = new ObjectInputStream(serialized)) {
+      inputStream.setObjectInputFilter(ElementCache::checkDecodable);
+      return (Element) inputStream.readObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Accepts only the classes of cached elements within the decoding limits.
+   */
+  private static ObjectInputFilter.Status checkDecodable(FilterInfo info) {
+    if (info.depth() > MAX_DECODED_DEPTH || info.references() > MAX_DECODED_OBJECTS
+        || info.streamBytes() > MAX_DECODED_BYTES || info.arrayLength() > MAX_DECODED_OBJECTS) {
+      return ObjectInputFilter.Status.REJECTED;
+    }
+    Class<?> serialClass = info.serialClass();
+    while (serialClass != null && serialClass.isArray()) {
+      serialClass = serialClass.getComponentType();
+    }
+    if (serialClass == null || serialClass.isPrimitive()
+        || DECODABLE_CLASSES.contains(serialClass.getName())) {
+      return ObjectInputFilter.Status.ALLOWED;
+    }
+    return ObjectInputFilter.Status.REJECTED;
+  }
+
+  /**
+   * The serialized variants of a cached element by requested languages and the urns of its
+   * members.
+   */
+  private static class Entry {
+    private final Map<String, byte[]> variants = new HashMap<>();
+    private final Set<String> references;
+
+    private Entry(Set<String> references) {
+      this.references = references;
+    }
+  }
+}
@@ -6,9 +6,13 @@ import static de.dataelementhub.dal.jooq.Tables.IDENTIFIED_ELEMENT;
 import de.dataelementhub.dal.jooq.enums.ElementType;
 import de.dataelementhub.dal.jooq.enums.Status;
 import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
+import de.dataelementhub.dal.jooq.tables.records.ElementRecord;
 import de.dataelementhub.dal.jooq.tables.records.IdentifiedElementRecord;
+import de.dataelementhub.model.DaoUtil;
+import de.dataelementhub.model.dto.element.DataElement;
 import de.dataelementhub.model.dto.element.Element;
 import de.dataelementhub.model.dto.element.Namespace;
+import de.dataelementhub.model.dto.element.section.ConceptAssociation;
 import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.Member;
 import de.dataelementhub.model.dto.element.section.ValueDomain;
@@ -16,15 +20,23 @@ import de.dataelementhub.model.dto.element.section.validation.PermittedValue;
 import de.dataelementhub.model.handler.element.section.ConceptAssociationHandler;
 import de.dataelementhub.model.handler.element.section.DefinitionHandler;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
+import de.dataelementhub.model.handler.element.section.IdentifierAllocator;
 import de.dataelementhub.model.handler.element.section.MemberHandler;
 import de.dataelementhub.model.handler.element.section.SlotHandler;
 import de.dataelementhub.model.handler.element.section.ValueDomainHandler;
 import de.dataelementhub.model.handler.element.section.validation.PermittedValueHandler;
 import de.dataelementhub.model.handler.element.section.validation.PermittedValuesHandler;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
 import org.jooq.DSLContext;
+import org.jooq.InsertSetMoreStep;
 
 /**
  * Element Handler.
@@ -147,11 +159,20 @@ public abstract class ElementHandler {
    */
   public static Element convertToElement(DSLContext ctx, Identification identification,
       IdentifiedElementRecord identifiedElementRecord) {
+    return convertToElement(ctx, identification, identifiedElementRecord, null);
+  }
+
+  /**
+   * Convert an identified element record to an element with only the definition in the best
+   * matching of the requested languages (all definitions if languages is null).
+   */
+  public static Element convertToElement(DSLContext ctx, Identification identification,
+      IdentifiedElementRecord identifiedElementRecord, String languages) {
     Element element = new Element();
     identification.setStatus(identifiedElementRecord.getSiStatus());
     element.setIdentification(identification);
     element.setDefinitions(DefinitionHandler
-        .get(ctx, identifiedElementRecord.getSiId()));
+        .get(ctx, identifiedElementRecord.getSiId(), languages));
     element.setSlots(SlotHandler.get(ctx, identification));
     return element;
   }
@@ -168,6 +189,155 @@ public abstract class ElementHandler {
             .fetchOne().getId();
   }
 
+  /**
+   * Save a list of elements with multi-row inserts and return their new ids in the given order.
+   */
+  public static List<Integer> saveElements(DSLContext ctx,
+      List<de.dataelementhub.dal.jooq.tables.pojos.Element> elements) {
+    elements.forEach(e -> {
+      if (e.getUuid() == null) {
+        e.setUuid(UUID.randomUUID());
+      }
+    });
+    Map<UUID, Integer> ids = new HashMap<>();
+    for (int from = 0; from < elements.size(); from += DaoUtil.BATCH_SIZE) {
+      List<de.dataelementhub.dal.jooq.tables.pojos.Element> chunk = elements.subList(from,
+          Math.min(from + DaoUtil.BATCH_SIZE, elements.size()));
+      InsertSetMoreStep<ElementRecord> insert = null;
+      for (de.dataelementhub.dal.jooq.tables.pojos.Element element : chunk) {
+        ElementRecord record = ctx.newRecord(ELEMENT, element);
+        insert = insert == null
+            ? ctx.insertInto(ELEMENT).set(record)
+            : insert.newRecord().set(record);
+      }
+      insert.returning(ELEMENT.ID, ELEMENT.UUID).fetch()
+          .forEach(r -> ids.put(r.getUuid(), r.getId()));
+    }
+    return elements.stream().map(e -> ids.get(e.getUuid())).collect(Collectors.toList());
+  }
+
+  /**
+   * Returns true if the element can be written by {@link #createAll}. Elements which need nested
+   * writes (inline or enumerated value domains, members, value domains from other namespaces) have
+   * to be created one by one by their handlers.
+   */
+  public static boolean isBulkCreatable(Element element) {
+    switch (element.getIdentification().getElementType()) {
+      case DESCRIBED_VALUE_DOMAIN:
+        return !ValueDomain.TYPE_ENUMERATED.equalsIgnoreCase(((ValueDomain) element).getType());
+      case PERMISSIBLE_VALUE:
+        return true;
+      case DATAELEMENT:
+        DataElement dataElement = (DataElement) element;
+        return dataElement.getValueDomain() == null && dataElement.getValueDomainUrn() != null
+            && !dataElement.getValueDomainUrn().isEmpty()
+            && Objects.equals(
+                IdentificationHandler.getNamespaceIdentifierFromUrn(
+                    dataElement.getValueDomainUrn()),
+                IdentificationHandler.getNamespaceIdentifierFromUrn(
+                    dataElement.getIdentification().getNamespaceUrn()));
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Create a list of elements of one namespace with set-based writes: multi-row inserts for the
+   * elements and their scoped identifiers and one batch each for definitions, slots and concept
+   * associations. Access and namespace status have to be checked by the caller and all elements
+   * have to be {@link #isBulkCreatable}. The new scoped identifiers are returned in the given order.
+   */
+  public static List<ScopedIdentifier> createAll(DSLContext ctx, int userId, String namespaceUrn,
+      List<Element> elements) {
+    IdentifiedElementRecord namespaceRecord = NamespaceHandler.getLatestNamespaceRecord(ctx,
+        userId, IdentificationHandler.getNamespaceIdentifierFromUrn(namespaceUrn));
+
+    Map<String, ScopedIdentifier> valueDomainIdentifiers = new HashMap<>();
+    List<de.dataelementhub.dal.jooq.tables.pojos.Element> elementPojos = new ArrayList<>();
+    List<List<ConceptAssociation>> conceptAssociations = new ArrayList<>();
+    for (Element element : elements) {
+      de.dataelementhub.dal.jooq.tables.pojos.Element elementPojo;
+      switch (element.getIdentification().getElementType()) {
+        case DESCRIBED_VALUE_DOMAIN:
+          elementPojo = ValueDomainHandler.convert((ValueDomain) element);
+          conceptAssociations.add(((ValueDomain) element).getConceptAssociations());
+          break;
+        case PERMISSIBLE_VALUE:
+          elementPojo = PermittedValueHandler.convert((PermittedValue) element);
+          conceptAssociations.add(((PermittedValue) element).getConceptAssociations());
+          break;
+        case DATAELEMENT:
+          DataElement dataElement = (DataElement) element;
+          ScopedIdentifier valueDomainIdentifier = valueDomainIdentifiers.computeIfAbsent(
+              dataElement.getValueDomainUrn(),
+              urn -> IdentificationHandler.getScopedIdentifier(ctx, urn));
+          checkValueDomain(dataElement, valueDomainIdentifier);
+          elementPojo = new de.dataelementhub.dal.jooq.tables.pojos.Element();
+          elementPojo.setElementId(valueDomainIdentifier.getElementId());
+          elementPojo.setElementType(ElementType.DATAELEMENT);
+          conceptAssociations.add(dataElement.getConceptAssociations());
+          break;
+        default:
+          throw new IllegalArgumentException("Element Type is not supported for bulk creation: "
+              + element.getIdentification().getElementType());
+      }
+      elementPojo.setCreatedBy(userId);
+      elementPojo.setUuid(UUID.randomUUID());
+      elementPojos.add(elementPojo);
+    }
+
+    List<Integer> elementIds = saveElements(ctx, elementPojos);
+    List<ScopedIdentifier> scopedIdentifiers = IdentificationHandler.createAll(ctx, userId,
+        elements.stream().map(Element::getIdentification).collect(Collectors.toList()),
+        elementIds, namespaceRecord.getId());
+
+    List<de.dataelementhub.dal.jooq.tables.pojos.Definition> definitions = new ArrayList<>();
+    List<de.dataelementhub.dal.jooq.tables.pojos.Slot> slots = new ArrayList<>();
+    Map<Integer, List<ConceptAssociation>> conceptAssociationsById = new LinkedHashMap<>();
+    for (int i = 0; i < elements.size(); i++) {
+      Element element = elements.get(i);
+      int scopedIdentifierId = scopedIdentifiers.get(i).getId();
+      if (element.getDefinitions() != null) {
+        definitions.addAll(DefinitionHandler.convert(element.getDefinitions(), elementIds.get(i),
+            scopedIdentifierId));
+      }
+      slots.addAll(SlotHandler.convert(element.getSlots(), scopedIdentifierId));
+      if (conceptAssociations.get(i) != null && !conceptAssociations.get(i).isEmpty()) {
+        conceptAssociationsById.put(scopedIdentifierId, conceptAssociations.get(i));
+      }
+    }
+    DefinitionHandler.saveDefinitions(ctx, definitions);
+    SlotHandler.saveSlots(ctx, slots);
+    ConceptAssociationHandler.saveAll(ctx, userId, conceptAssociationsById);
+    return scopedIdentifiers;
+  }
+
+  /**
+   * Check that the value domain of a dataelement exists and fits the status of the dataelement.
+   */
+  private static void checkValueDomain(DataElement dataElement,
+      ScopedIdentifier valueDomainIdentifier) {
+    if (valueDomainIdentifier == null) {
+      throw new NoSuchElementException(
+          "ValueDomainUrn: " + dataElement.getValueDomainUrn() + " does not exist!");
+    }
+    if (valueDomainIdentifier.getElementType() != ElementType.ENUMERATED_VALUE_DOMAIN
+        && valueDomainIdentifier.getElementType() != ElementType.DESCRIBED_VALUE_DOMAIN) {
+      throw new IllegalArgumentException(
+          "Value Domain urn must belong to an actual value domain.");
+    }
+    Status status = dataElement.getIdentification().getStatus();
+    if (valueDomainIdentifier.getStatus() == Status.DRAFT
+        && (status == Status.RELEASED || status == Status.OUTDATED)) {
+      throw new IllegalArgumentException(
+          "Released elements may not contain draft value domains.");
+    }
+    if (status == Status.RELEASED && valueDomainIdentifier.getStatus() != Status.RELEASED) {
+      throw new IllegalStateException(
+          "Value domain is not released. Element can not be released.");
+    }
+  }
+
 
   /**
    * Outdates or deletes the given element. Depending on the status of the element. Drafts are
@@ -230,12 +400,24 @@ public abstract class ElementHandler {
    */
   public static ScopedIdentifier importIntoParentNamespace(DSLContext ctx, int userId,
       int targetNamespaceId, String urn) {
+    return importIntoParentNamespace(ctx, userId, targetNamespaceId, urn, null);
+  }
+
+  /**
+   * Import the ScopedIdentifier and all related entries into the value domain namespace, using the
+   * given (already reserved) identifier. If the identifier is null, a free one is allocated.
+   */
+  private static ScopedIdentifier importIntoParentNamespace(DSLContext ctx, int userId,
+      int targetNamespaceId, String urn, Integer targetIdentifier) {
 
     ScopedIdentifier sourceScopedIdentifier = IdentificationHandler
         .getScopedIdentifier(ctx, urn);
 
-    ScopedIdentifier targetScopedIdentifier = IdentificationHandler
-        .importToNamespace(ctx, userId, sourceScopedIdentifier, targetNamespaceId);
+    ScopedIdentifier targetScopedIdentifier = targetIdentifier == null
+        ? IdentificationHandler.importToNamespace(ctx, userId, sourceScopedIdentifier,
+            targetNamespaceId)
+        : IdentificationHandler.importToNamespace(ctx, userId, sourceScopedIdentifier,
+            targetNamespaceId, targetIdentifier);
 
     // Copy definitions
     DefinitionHandler
@@ -254,11 +436,18 @@ public abstract class ElementHandler {
       ValueDomain valueDomain = ValueDomainHandler
           .get(ctx, userId, IdentificationHandler.convert(ctx, sourceScopedIdentifier));
       List<ScopedIdentifier> importedPermittedValueScopedIdentifiers = new ArrayList<>();
-
-      for (PermittedValue pv : valueDomain.getPermittedValues()) {
-        ScopedIdentifier importedScopedIdentifier = importIntoParentNamespace(ctx, userId,
-            targetNamespaceId, pv.getIdentification().getUrn());
-        importedPermittedValueScopedIdentifiers.add(importedScopedIdentifier);
+      List<PermittedValue> permittedValues = valueDomain.getPermittedValues();
+
+      // Reserve the identifiers of all permitted values with one round-trip instead of each
+      if (!permittedValues.isEmpty()) {
+        List<Integer> identifiers = IdentifierAllocator.reserve(ctx, targetNamespaceId,
+            ElementType.PERMISSIBLE_VALUE, permittedValues.size());
+        for (int i = 0; i < permittedValues.size(); i++) {
+          ScopedIdentifier importedScopedIdentifier = importIntoParentNamespace(ctx, userId,
+              targetNamespaceId, permittedValues.get(i).getIdentification().getUrn(),
+              identifiers.get(i));
+          importedPermittedValueScopedIdentifiers.add(importedScopedIdentifier);
+        }
       }
       PermittedValuesHandler.createRelations(ctx, targetScopedIdentifier.getId(),
           importedPermittedValueScopedIdentifiers);
@@ -272,10 +461,15 @@ public abstract class ElementHandler {
    * Draft/staged namespaces can only contain draft/staged elements.
    */
   public static boolean statusMismatch(DSLContext ctx, int userId, Element element) {
+    return statusMismatch(NamespaceHandler.getByUrn(ctx, userId,
+        element.getIdentification().getNamespaceUrn()), element);
+  }
 
-    Namespace namespace = NamespaceHandler.getByUrn(ctx, userId,
-        element.getIdentification().getNamespaceUrn());
-
+  /**
+   * Check if the element can be created in the given (already loaded) namespace.
+   * Draft/staged namespaces can only contain draft/staged elements.
+   */
+  public static boolean statusMismatch(Namespace namespace, Element element) {
     if (namespace == null || namespace.getIdentification() == null
         || namespace.getIdentification().getStatus() == null) {
       return true;
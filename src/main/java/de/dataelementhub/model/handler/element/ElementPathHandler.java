@@ -8,14 +8,18 @@ import de.dataelementhub.dal.jooq.enums.Status;
 import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
 import de.dataelementhub.model.DaoUtil;
 import de.dataelementhub.model.dto.element.Element;
+import de.dataelementhub.model.dto.element.section.Definition;
 import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.listviews.SimplifiedElementIdentification;
 import de.dataelementhub.model.handler.element.section.DefinitionHandler;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.jooq.DSLContext;
 
@@ -112,18 +116,27 @@ public class ElementPathHandler {
   }
 
   /**
-   * Get the designations for all urns in a path.
+   * Get the designations for all urns in a path. The scoped identifiers and the designations in
+   * the requested languages are read for all distinct urns of all paths with one query each.
+   * Urns without a designation are used as their own designation.
    */
   public static List<List<String>> getDesignations(DSLContext ctx,
       List<List<String>> paths, String languages) {
+    Set<String> urns = new HashSet<>();
+    paths.forEach(urns::addAll);
+    Map<String, ScopedIdentifier> scopedIdentifiers =
+        IdentificationHandler.getScopedIdentifiers(ctx, urns);
+    Map<Integer, List<Definition>> definitions = DefinitionHandler.get(ctx,
+        scopedIdentifiers.values().stream().map(ScopedIdentifier::getId)
+            .collect(Collectors.toSet()), Element.parseLanguages(languages));
     List<List<String>> allDesignations = new ArrayList<>();
-    for (int pathIndex = 0; pathIndex < paths.size(); pathIndex++) {
+    for (List<String> path : paths) {
       List<String> pathDesignations = new ArrayList<>();
-      for (int urnIndex = 0; urnIndex < paths.get(pathIndex).size(); urnIndex++) {
-        String urn = paths.get(pathIndex).get(urnIndex);
-        ScopedIdentifier scopedIdentifier =
-            IdentificationHandler.getScopedIdentifier(ctx, urn);
-        pathDesignations.add(getDesignation(ctx, scopedIdentifier.getId(), languages));
+      for (String urn : path) {
+        ScopedIdentifier scopedIdentifier = scopedIdentifiers.get(urn);
+        String designation = scopedIdentifier != null
+            ? getDesignation(definitions.get(scopedIdentifier.getId())) : null;
+        pathDesignations.add(designation != null ? designation : urn);
       }
       allDesignations.add(pathDesignations);
     }
@@ -131,14 +144,26 @@ public class ElementPathHandler {
   }
 
   /**
-   * Get element designation by scopedIdentifierId.
+   * Get element designation by scopedIdentifierId. Elements without a designation are
+   * designated by their urn.
    */
   public static String getDesignation(DSLContext ctx,
       int scopedIdentifierId, String languages) {
-    Element element = new Element();
-    element.setDefinitions(DefinitionHandler.get(ctx, scopedIdentifierId));
-    element.applyLanguageFilter(languages);
-    return element.getDefinitions().get(0).getDesignation();
+    String designation = getDesignation(DefinitionHandler.get(ctx,
+            Collections.singletonList(scopedIdentifierId), Element.parseLanguages(languages))
+        .get(scopedIdentifierId));
+    if (designation != null) {
+      return designation;
+    }
+    return IdentificationHandler.toUrn(ctx, scopedIdentifierId);
+  }
+
+  /**
+   * Returns the designation of the first of these definitions or null if there is none.
+   */
+  private static String getDesignation(List<Definition> definitions) {
+    return definitions != null && !definitions.isEmpty()
+        ? definitions.get(0).getDesignation() : null;
   }
 
   /**
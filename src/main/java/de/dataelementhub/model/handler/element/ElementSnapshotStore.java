@@ -0,0 +1,475 @@
+package de.dataelementhub.model.handler.element;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Element Snapshot Store.
+ *
+ * <p>An optional store for serialized released elements in a memory-mapped file, so cached
+ * elements live outside of the heap and survive restarts. Elements are appended as deflated
+ * records and only decoded when they are read. Evicted elements are marked with a tombstone
+ * record. The file is compacted when it is opened and cleared when it is full. Only the index of
+ * urns, record offsets and member urns is kept on the heap.
+ *
+ * <p>Reads inflate and decode a record straight from the mapped file, so a hit does not copy
+ * the deflated or the inflated bytes to the heap, only the decoded element is allocated. Reads
+ * take the lock only to look up the record and to check afterwards that the store was not
+ * cleared meanwhile, which is the only way a record is overwritten.
+ *
+ * <p>The header holds the fingerprint of the serialized classes and the change mark of the
+ * database the snapshots were valid for. A file with another fingerprint can not be decoded and
+ * a file with another change mark may hold elements that changed while no node was listening
+ * for invalidations, so the snapshots of both are discarded when the file is opened.
+ *
+ * <p>Header layout: {@code magic, version, fingerprint, change mark}. Record layout: {@code length, urn, languages, member count, members, payload length,
+ * payload}, strings as length and UTF-8 bytes. A payload length of -1 marks a tombstone. The
+ * length is written last, so a record that was not written completely ends the file.
+ */
+@Slf4j
+public class ElementSnapshotStore {
+
+  private static final int MAGIC = 0x44454853;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 24;
+  private static final int TOMBSTONE = -1;
+  private static final int DECODE_BUFFER_SIZE = 8192;
+
+  private static final Map<String, Entry> ENTRIES = new HashMap<>();
+  private static File file;
+  private static MappedByteBuffer buffer;
+  private static int position;
+  private static long clears;
+  private static long fingerprint;
+  private static long changeMark;
+
+  /**
+   * Open the store in this file, mapping the given number of bytes. Existing snapshots in the
+   * file are indexed and compacted if they were written with the same fingerprint and change
+   * mark, otherwise they are discarded. A file of null closes the store.
+   *
+   * @param classFingerprint the fingerprint of the serialized classes
+   * @param databaseChangeMark the current change mark of the database
+   */
+  public static synchronized void open(File snapshotFile, int sizeInBytes, long classFingerprint,
+      long databaseChangeMark) throws IOException {
+    close();
+    if (snapshotFile == null) {
+      return;
+    }
+    if (sizeInBytes <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Snapshot size must be larger than " + HEADER_SIZE);
+    }
+    if (snapshotFile.getParentFile() != null) {
+      snapshotFile.getParentFile().mkdirs();
+    }
+    List<Record> records = new ArrayList<>();
+    boolean compact = false;
+    if (snapshotFile.isFile() && snapshotFile.length() > HEADER_SIZE) {
+      ByteBuffer existing = map(snapshotFile, (int) Math.min(snapshotFile.length(),
+          Integer.MAX_VALUE));
+      if (existing.getInt(0) != MAGIC || existing.getInt(4) != VERSION) {
+        log.warn("Ignoring snapshot file with unknown format: " + snapshotFile);
+        compact = true;
+      } else if (existing.getLong(8) != classFingerprint) {
+        log.info("Discarding snapshots of changed element classes in " + snapshotFile);
+        compact = true;
+      } else if (existing.getLong(16) != databaseChangeMark) {
+        log.info("Discarding snapshots of changed elements in " + snapshotFile);
+        compact = true;
+      } else {
+        compact = readRecords(existing, records);
+      }
+    }
+    fingerprint = classFingerprint;
+    changeMark = databaseChangeMark;
+    if (compact || snapshotFile.length() != sizeInBytes) {
+      File temporary = new File(snapshotFile.getPath() + ".tmp");
+      Files.deleteIfExists(temporary.toPath());
+      MappedByteBuffer compacted = map(temporary, sizeInBytes);
+      int end = writeRecords(compacted, records);
+      compacted.force();
+      Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      records.subList(end, records.size()).clear();
+    }
+    file = snapshotFile;
+    buffer = map(snapshotFile, sizeInBytes);
+    position = HEADER_SIZE;
+    for (Record record : records) {
+      index(record.urn, record.languages, record.references, position);
+      position += record.length();
+    }
+    log.info("Opened element snapshot store " + snapshotFile + " with " + ENTRIES.size()
+        + " elements");
+  }
+
+  /**
+   * Close the store. Written snapshots stay in the file.
+   */
+  public static synchronized void close() {
+    if (buffer != null) {
+      buffer.force();
+    }
+    ENTRIES.clear();
+    clears++;
+    file = null;
+    buffer = null;
+    position = 0;
+  }
+
+  /**
+   * Returns true if a snapshot file is open.
+   */
+  public static synchronized boolean isOpen() {
+    return buffer != null;
+  }
+
+  /**
+   * Decodes the element with this urn read with these languages from the inflated record or
+   * returns null if it is not stored.
+   *
+   * @param decoder reads the element from the serialized form
+   */
+  public static <T> T get(String urn, String languages, Function<InputStream, T> decoder) {
+    ByteBuffer payload;
+    long readClears;
+    synchronized (ElementSnapshotStore.class) {
+      Entry entry = ENTRIES.get(urn);
+      Integer offset = entry != null ? entry.offsets.get(languages) : null;
+      if (offset == null) {
+        return null;
+      }
+      payload = Record.payload(buffer, offset);
+      readClears = clears;
+    }
+    T decoded;
+    try (InputStream inputStream = new BufferedInputStream(
+        new InflaterInputStream(new ByteBufferInputStream(payload)), DECODE_BUFFER_SIZE)) {
+      decoded = decoder.apply(inputStream);
+    } catch (IOException | RuntimeException e) {
+      if (isCleared(readClears)) {
+        // The record was overwritten while it was decoded
+        return null;
+      }
+      throw e instanceof IOException ? new UncheckedIOException((IOException) e)
+          : (RuntimeException) e;
+    }
+    return isCleared(readClears) ? null : decoded;
+  }
+
+  /**
+   * Store a serialized element. A full store is cleared first.
+   *
+   * @return true if the element was stored
+   */
+  public static boolean put(String urn, String languages, Set<String> references,
+      byte[] serialized) {
+    Record record = new Record(urn, languages, references, deflate(serialized));
+    synchronized (ElementSnapshotStore.class) {
+      if (!append(record)) {
+        log.info("Element snapshot store " + file + " is full and is cleared");
+        clear();
+        if (!append(record)) {
+          return false;
+        }
+      }
+      index(urn, languages, references, position - record.length());
+      return true;
+    }
+  }
+
+  /**
+   * Remove an element and all elements listing it as a member from the store.
+   */
+  public static synchronized void evict(String urn) {
+    if (buffer == null || urn == null) {
+      return;
+    }
+    Set<String> evicted = new HashSet<>();
+    if (ENTRIES.remove(urn) != null) {
+      evicted.add(urn);
+    }
+    Iterator<Map.Entry<String, Entry>> entries = ENTRIES.entrySet().iterator();
+    while (entries.hasNext()) {
+      Map.Entry<String, Entry> entry = entries.next();
+      if (entry.getValue().references.contains(urn)) {
+        entries.remove();
+        evicted.add(entry.getKey());
+      }
+    }
+    for (String evictedUrn : evicted) {
+      if (!append(new Record(evictedUrn, "", Collections.emptySet(), null))) {
+        // Without a tombstone the element would be indexed again after a restart
+        clear();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Remove all elements from the store.
+   */
+  public static synchronized void clear() {
+    if (buffer == null) {
+      return;
+    }
+    ENTRIES.clear();
+    clears++;
+    buffer.putInt(HEADER_SIZE, 0);
+    position = HEADER_SIZE;
+  }
+
+  private static synchronized boolean isCleared(long readClears) {
+    return clears != readClears;
+  }
+
+  private static boolean append(Record record) {
+    if (buffer == null) {
+      return false;
+    }
+    if (position + record.length() + Integer.BYTES > buffer.capacity()) {
+      return false;
+    }
+    buffer.putInt(position + record.length(), 0);
+    record.write(buffer, position);
+    position += record.length();
+    return true;
+  }
+
+  private static void index(String urn, String languages, Set<String> references, int offset) {
+    ENTRIES.computeIfAbsent(urn, u -> new Entry(references)).offsets.put(languages, offset);
+  }
+
+  /**
+   * Read all records that are not evicted, in the order they were written.
+   *
+   * @return true if the file contains evicted or replaced records
+   */
+  private static boolean readRecords(ByteBuffer existing, List<Record> records) {
+    Map<String, Record> live = new LinkedHashMap<>();
+    int offset = HEADER_SIZE;
+    int count = 0;
+    try {
+      while (offset + Integer.BYTES <= existing.capacity() && existing.getInt(offset) > 0) {
+        Record record = Record.read(existing, offset);
+        String key = record.urn + '\n' + record.languages;
+        if (record.payload == null) {
+          live.keySet().removeIf(k -> k.startsWith(record.urn + '\n'));
+        } else {
+          live.remove(key);
+          live.put(key, record);
+        }
+        offset += record.length();
+        count++;
+      }
+    } catch (RuntimeException e) {
+      log.warn("Ignoring damaged snapshot records from offset " + offset, e);
+      count++;
+    }
+    records.addAll(live.values());
+    return count != records.size();
+  }
+
+  /**
+   * Write the header and as many records as fit.
+   *
+   * @return the number of written records
+   */
+  private static int writeRecords(ByteBuffer target, List<Record> records) {
+    target.putInt(0, MAGIC);
+    target.putInt(4, VERSION);
+    target.putLong(8, fingerprint);
+    target.putLong(16, changeMark);
+    int offset = HEADER_SIZE;
+    int written = 0;
+    for (Record record : records) {
+      if (offset + record.length() + Integer.BYTES > target.capacity()) {
+        break;
+      }
+      record.write(target, offset);
+      offset += record.length();
+      written++;
+    }
+    target.putInt(offset, 0);
+    return written;
+  }
+
+  private static MappedByteBuffer map(File target, int sizeInBytes) throws IOException {
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(target, "rw")) {
+      return randomAccessFile.getChannel().map(MapMode.READ_WRITE, 0, sizeInBytes);
+    }
+  }
+
+  private static byte[] deflate(byte[] serialized) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(serialized.length / 2);
+    try (OutputStream outputStream = new DeflaterOutputStream(bytes,
+        new Deflater(Deflater.BEST_SPEED))) {
+      outputStream.write(serialized);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+
+  /**
+   * The record offsets of a stored element by requested languages and the urns of its members.
+   */
+  private static class Entry {
+    private final Map<String, Integer> offsets = new HashMap<>();
+    private final Set<String> references;
+
+    private Entry(Set<String> references) {
+      this.references = references;
+    }
+  }
+
+  /**
+   * A record of the snapshot file. A record without payload is a tombstone.
+   */
+  private static class Record {
+    private final String urn;
+    private final String languages;
+    private final Set<String> references;
+    private final byte[] payload;
+
+    private Record(String urn, String languages, Set<String> references, byte[] payload) {
+      this.urn = urn;
+      this.languages = languages;
+      this.references = references;
+      this.payload = payload;
+    }
+
+    private int length() {
+      int length = Integer.BYTES * 4 + utf8(urn).length + utf8(languages).length;
+      for (String reference : references) {
+        length += Integer.BYTES + utf8(reference).length;
+      }
+      return length + (payload != null ? payload.length : 0);
+    }
+
+    private void write(ByteBuffer target, int offset) {
+      ByteBuffer view = target.duplicate();
+      view.position(offset + Integer.BYTES);
+      putString(view, urn);
+      putString(view, languages);
+      view.putInt(references.size());
+      references.forEach(reference -> putString(view, reference));
+      view.putInt(payload != null ? payload.length : TOMBSTONE);
+      if (payload != null) {
+        view.put(payload);
+      }
+      target.putInt(offset, length());
+    }
+
+    private static Record read(ByteBuffer source, int offset) {
+      ByteBuffer view = source.duplicate();
+      view.position(offset + Integer.BYTES);
+      String urn = getString(view);
+      String languages = getString(view);
+      int referenceCount = view.getInt();
+      Set<String> references = referenceCount == 0 ? Collections.emptySet() : new HashSet<>();
+      for (int i = 0; i < referenceCount; i++) {
+        references.add(getString(view));
+      }
+      int payloadLength = view.getInt();
+      byte[] payload = null;
+      if (payloadLength != TOMBSTONE) {
+        payload = new byte[payloadLength];
+        view.get(payload);
+      }
+      return new Record(urn, languages, references, payload);
+    }
+
+    /**
+     * Returns a view of the payload of a record without copying it.
+     */
+    private static ByteBuffer payload(ByteBuffer source, int offset) {
+      ByteBuffer view = source.duplicate();
+      view.position(offset + Integer.BYTES);
+      skipString(view);
+      skipString(view);
+      int referenceCount = view.getInt();
+      for (int i = 0; i < referenceCount; i++) {
+        skipString(view);
+      }
+      int payloadLength = view.getInt();
+      view.limit(view.position() + payloadLength);
+      return view.slice();
+    }
+
+    private static void skipString(ByteBuffer source) {
+      int length = source.getInt();
+      source.position(source.position() + length);
+    }
+
+    private static void putString(ByteBuffer target, String value) {
+      byte[] bytes = utf8(value);
+      target.putInt(bytes.length);
+      target.put(bytes);
+    }
+
+    private static String getString(ByteBuffer source) {
+      byte[] bytes = new byte[source.getInt()];
+      source.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+      return value.getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Reads the remaining bytes of a buffer.
+   */
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer source;
+
+    private ByteBufferInputStream(ByteBuffer source) {
+      this.source = source;
+    }
+
+    @Override
+    public int read() {
+      return source.hasRemaining() ? source.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (!source.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, source.remaining());
+      source.get(bytes, offset, count);
+      return count;
+    }
+  }
+}
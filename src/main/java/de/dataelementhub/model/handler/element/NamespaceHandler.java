@@ -24,7 +24,10 @@ import de.dataelementhub.model.dto.element.section.Definition;
 import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.Member;
 import de.dataelementhub.model.dto.listviews.NamespaceMember;
+import de.dataelementhub.model.dto.listviews.NamespaceMemberPage;
 import de.dataelementhub.model.handler.AccessLevelHandler;
+import de.dataelementhub.model.handler.CacheInvalidationBus;
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
 import de.dataelementhub.model.handler.UserHandler;
 import de.dataelementhub.model.handler.element.section.DefinitionHandler;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
@@ -33,6 +36,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -41,10 +45,18 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Result;
 import org.jooq.SelectConditionStep;
+import org.jooq.SelectFieldOrAsterisk;
+import org.jooq.SelectLimitStep;
+import org.jooq.SelectSeekStepN;
+import org.jooq.SortField;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
 import org.simpleflatmapper.jdbc.JdbcMapper;
@@ -112,6 +124,24 @@ public class NamespaceHandler extends ElementHandler {
         + scopedIdentifier.getIdentifier() + ":" + scopedIdentifier.getVersion();
   }
 
+  /**
+   * Get the urns of the latest versions of the given namespaces (database ids) with one query.
+   */
+  public static Map<Integer, String> getNamespaceUrnsByIds(DSLContext ctx,
+      Collection<Integer> namespaceIds) {
+    Map<Integer, String> namespaceUrns = new HashMap<>();
+    ctx.select(SCOPED_IDENTIFIER.NAMESPACE_ID, SCOPED_IDENTIFIER.IDENTIFIER,
+            DSL.max(SCOPED_IDENTIFIER.VERSION))
+        .from(SCOPED_IDENTIFIER)
+        .where(SCOPED_IDENTIFIER.NAMESPACE_ID.in(namespaceIds))
+        .and(SCOPED_IDENTIFIER.ELEMENT_TYPE.eq(ElementType.NAMESPACE))
+        .groupBy(SCOPED_IDENTIFIER.NAMESPACE_ID, SCOPED_IDENTIFIER.IDENTIFIER)
+        .fetch()
+        .forEach(r -> namespaceUrns.put(r.value1(),
+            "urn:" + r.value2() + ":namespace:" + r.value2() + ":" + r.value3()));
+    return namespaceUrns;
+  }
+
   /**
    * Get a Namespace.
    */
@@ -417,6 +447,8 @@ public class NamespaceHandler extends ElementHandler {
       AccessLevelHandler.setAccessForNamespace(ctx, namespaceAccess);
       updateNamespaceIds(ctx, userId, previousNamespace.getIdentification().getNamespaceId(),
           newScopedIdentifier.getNamespaceId());
+      CacheInvalidationBus.publish(ctx, Region.NAMESPACE,
+          previousNamespace.getIdentification().getUrn());
 
       return IdentificationHandler.convert(ctx, newScopedIdentifier);
     } else {
@@ -435,6 +467,8 @@ public class NamespaceHandler extends ElementHandler {
         setHideNamespace(ctx, userId, namespace.getIdentification().getUrn(),
             namespace.getIdentification().getHideNamespace());
       }
+      CacheInvalidationBus.publish(ctx, Region.NAMESPACE,
+          previousNamespace.getIdentification().getUrn());
       return namespace.getIdentification();
     }
   }
@@ -554,11 +588,133 @@ public class NamespaceHandler extends ElementHandler {
         namespaceMembers.add(nsm);
       });
     } catch (SQLException e) {
-      e.printStackTrace();
+      throw new DataAccessException(e.getMessage(), e);
     }
     return namespaceMembers;
   }
 
+  /**
+   * Get one page of members for the list view representation by a namespace id. Pages are read
+   * with keyset pagination: the next page starts after the sort value and scoped identifier id
+   * of the last member of the previous page. Definitions are only read for the members of the
+   * page and filtered to the requested languages on the database; members without a definition
+   * in these languages keep all definitions.
+   *
+   * @param languages Accept-Language style list of languages or null for all
+   * @param sortBy "designation", "status" or null to sort by scoped identifier id
+   * @param afterValue the sort value of the last member of the previous page
+   * @param afterId the scoped identifier id of the last member of the previous page or null for
+   *     the first page
+   */
+  public static NamespaceMemberPage getNamespaceMembersListview(DSLContext ctx, int userId,
+      Integer namespaceIdentifier, List<ElementType> elementTypes, Boolean hideSubElements,
+      String languages, String sortBy, String afterValue, Integer afterId, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    if (elementTypes == null || elementTypes.isEmpty()) {
+      elementTypes = Arrays
+          .asList(ElementType.DATAELEMENT, ElementType.DATAELEMENTGROUP, ElementType.RECORD);
+    }
+    List<String> requestedLanguages = NamespaceMember.parseLanguages(languages);
+    Integer namespaceId = ctx.select(SCOPED_IDENTIFIER.NAMESPACE_ID)
+        .from(SCOPED_IDENTIFIER)
+        .where(SCOPED_IDENTIFIER.ELEMENT_TYPE.eq(ElementType.NAMESPACE))
+        .and(SCOPED_IDENTIFIER.IDENTIFIER.eq(namespaceIdentifier))
+        .orderBy(SCOPED_IDENTIFIER.VERSION.desc())
+        .limit(1)
+        .fetchOne(SCOPED_IDENTIFIER.NAMESPACE_ID);
+    if (namespaceId == null) {
+      throw new NoSuchElementException();
+    }
+
+    Condition condition = LISTVIEW_ELEMENT.ELEMENT_TYPE.in(elementTypes)
+        .and(LISTVIEW_ELEMENT.SI_NAMESPACE_ID.eq(namespaceId));
+    if (Boolean.TRUE.equals(hideSubElements)) {
+      condition = condition.andNotExists(ctx.select(SCOPED_IDENTIFIER_HIERARCHY.SUB_ID)
+          .from(SCOPED_IDENTIFIER_HIERARCHY)
+          .where(SCOPED_IDENTIFIER_HIERARCHY.SUB_ID.eq(LISTVIEW_ELEMENT.SI_ID))
+          .andNotExists(ctx.select(SCOPED_IDENTIFIER.ID).from(SCOPED_IDENTIFIER)
+              .where(SCOPED_IDENTIFIER.ID.eq(SCOPED_IDENTIFIER_HIERARCHY.SUPER_ID))
+              .and(SCOPED_IDENTIFIER.STATUS.eq(Status.OUTDATED))));
+    }
+
+    Field<?> sortValue;
+    Object afterSortValue;
+    if (sortBy == null || sortBy.isEmpty()) {
+      sortValue = null;
+      afterSortValue = null;
+    } else if (sortBy.equalsIgnoreCase("designation")) {
+      de.dataelementhub.dal.jooq.tables.Definition sortDefinition = DEFINITION.as("sort_definition");
+      sortValue = DSL.coalesce(DSL.field(DSL.select(DSL.min(sortDefinition.DESIGNATION))
+          .from(sortDefinition)
+          .where(sortDefinition.SCOPED_IDENTIFIER_ID.eq(LISTVIEW_ELEMENT.SI_ID))
+          .and(DefinitionHandler.languageCondition(sortDefinition, requestedLanguages))),
+          DSL.inline(""));
+      afterSortValue = afterValue == null ? "" : afterValue;
+    } else if (sortBy.equalsIgnoreCase("status")) {
+      sortValue = LISTVIEW_ELEMENT.SI_STATUS;
+      afterSortValue = afterValue == null ? null : Status.valueOf(afterValue);
+    } else {
+      throw new IllegalArgumentException("Unsupported sort order: " + sortBy);
+    }
+
+    List<SelectFieldOrAsterisk> fields = new ArrayList<>(Arrays.asList(LISTVIEW_ELEMENT.SI_ID,
+        LISTVIEW_ELEMENT.SI_IDENTIFIER, LISTVIEW_ELEMENT.SI_VERSION, LISTVIEW_ELEMENT.SI_STATUS,
+        LISTVIEW_ELEMENT.ELEMENT_TYPE, LISTVIEW_ELEMENT.VD_DATATYPE));
+    List<SortField<?>> orderBy = new ArrayList<>();
+    if (sortValue != null) {
+      fields.add(sortValue.as("sort_value"));
+      orderBy.add(sortValue.asc());
+    }
+    orderBy.add(LISTVIEW_ELEMENT.SI_ID.asc());
+    SelectSeekStepN<Record> ordered = ctx.select(fields)
+        .from(LISTVIEW_ELEMENT)
+        .where(condition)
+        .orderBy(orderBy);
+    SelectLimitStep<Record> page;
+    if (afterId == null) {
+      page = ordered;
+    } else if (sortValue == null) {
+      page = ordered.seek(afterId);
+    } else {
+      page = ordered.seek(afterSortValue, afterId);
+    }
+    Result<Record> rows = page.limit(limit).fetch();
+
+    Map<Integer, List<Definition>> definitions = DefinitionHandler.get(ctx,
+        rows.getValues(LISTVIEW_ELEMENT.SI_ID), requestedLanguages);
+
+    List<NamespaceMember> namespaceMembers = new ArrayList<>();
+    rows.forEach(row -> {
+      NamespaceMember nsm = new NamespaceMember();
+      nsm.setRevision(row.get(LISTVIEW_ELEMENT.SI_VERSION));
+      nsm.setIdentifier(row.get(LISTVIEW_ELEMENT.SI_IDENTIFIER));
+      nsm.setElementType(row.get(LISTVIEW_ELEMENT.ELEMENT_TYPE));
+      nsm.setStatus(row.get(LISTVIEW_ELEMENT.SI_STATUS));
+      nsm.setValidationType(row.get(LISTVIEW_ELEMENT.VD_DATATYPE));
+      nsm.setDefinitions(definitions.getOrDefault(row.get(LISTVIEW_ELEMENT.SI_ID),
+          new ArrayList<>()));
+      namespaceMembers.add(nsm);
+    });
+
+    NamespaceMemberPage namespaceMemberPage = new NamespaceMemberPage();
+    namespaceMemberPage.setMembers(namespaceMembers);
+    if (afterId == null) {
+      namespaceMemberPage.setTotalCount(ctx.fetchCount(LISTVIEW_ELEMENT, condition));
+    }
+    if (rows.size() == limit) {
+      Record last = rows.get(rows.size() - 1);
+      namespaceMemberPage.setNextAfterId(last.get(LISTVIEW_ELEMENT.SI_ID));
+      if (sortValue != null) {
+        Object lastSortValue = last.get("sort_value");
+        namespaceMemberPage.setNextAfterValue(lastSortValue instanceof Status
+            ? ((Status) lastSortValue).name() : String.valueOf(lastSortValue));
+      }
+    }
+    return namespaceMemberPage;
+  }
+
   /**
    * Read the users permissions for a given namespace (by namespace identifier).
    */
@@ -570,9 +726,11 @@ public class NamespaceHandler extends ElementHandler {
     }
     List<UserNamespaceAccess> userNamespaceAccess = AccessLevelHandler
         .getAccessForNamespaceByIdentifier(ctx, namespaceIdentifier);
+    Map<Integer, DehubUser> users = UserHandler.getUsersById(ctx, userNamespaceAccess.stream()
+        .map(UserNamespaceAccess::getUserId).collect(Collectors.toList()));
     List<DeHubUserPermission> permissions = new ArrayList<>();
     userNamespaceAccess.forEach(una -> {
-      DehubUser user = UserHandler.getUserById(ctx, una.getUserId());
+      DehubUser user = users.get(una.getUserId());
       permissions.add(new DeHubUserPermission(user.getAuthId(), una.getAccessLevel().getLiteral()));
     });
     return permissions;
@@ -28,10 +28,21 @@ public class RecordHandler extends ElementHandler {
   /**
    * Get a record by its urn.
    */
-  public static Record get(DSLContext ctx, int userId, Identification identification) {
+  public static Record get(
+      DSLContext ctx, int userId, Identification identification) {
+    return get(ctx, userId, identification, null);
+  }
+
+  /**
+   * Get a record with only the definitions in the requested languages
+   * (Accept-Language style, null for all languages).
+   */
+  public static Record get(
+      DSLContext ctx, int userId, Identification identification, String languages) {
     IdentifiedElementRecord identifiedElementRecord = ElementHandler
         .getIdentifiedElementRecord(ctx, identification);
-    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord);
+    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord,
+        languages);
 
     Record record = new Record();
     record.setIdentification(identification);
@@ -10,11 +10,19 @@ import de.dataelementhub.dal.jooq.tables.ScopedIdentifier;
 import de.dataelementhub.dal.jooq.tables.pojos.ConceptElementAssociations;
 import de.dataelementhub.dal.jooq.tables.records.ConceptElementAssociationsRecord;
 import de.dataelementhub.dal.jooq.tables.records.ConceptsRecord;
+import de.dataelementhub.model.DaoUtil;
 import de.dataelementhub.model.dto.element.section.ConceptAssociation;
 import de.dataelementhub.model.dto.element.section.Identification;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.jooq.DSLContext;
+import org.jooq.InsertSetMoreStep;
 
 /**
  * Concept Association Handler.
@@ -80,6 +88,30 @@ public class ConceptAssociationHandler {
     return conceptAssociations;
   }
 
+  /**
+   * Get the concept associations of these scoped identifiers with one query.
+   */
+  public static Map<Integer, List<ConceptAssociation>> get(DSLContext ctx,
+      Collection<Integer> scopedIdentifierIds) {
+    Map<Integer, List<ConceptAssociation>> conceptAssociations = new HashMap<>();
+    if (scopedIdentifierIds.isEmpty()) {
+      return conceptAssociations;
+    }
+    ctx.select()
+        .from(CONCEPT_ELEMENT_ASSOCIATIONS)
+        .join(CONCEPTS).on(CONCEPTS.ID.eq(CONCEPT_ELEMENT_ASSOCIATIONS.CONCEPT_ID))
+        .where(CONCEPT_ELEMENT_ASSOCIATIONS.SCOPEDIDENTIFIER_ID.in(scopedIdentifierIds))
+        .fetch()
+        .forEach(record -> {
+          ConceptElementAssociations cea = record.into(CONCEPT_ELEMENT_ASSOCIATIONS)
+              .into(ConceptElementAssociations.class);
+          conceptAssociations.computeIfAbsent(cea.getScopedidentifierId(),
+              id -> new ArrayList<>()).add(new ConceptAssociation(cea, record.into(CONCEPTS)
+              .into(de.dataelementhub.dal.jooq.tables.pojos.Concepts.class)));
+        });
+    return conceptAssociations;
+  }
+
   /**
    * Get a List of concept association.
    */
@@ -146,6 +178,78 @@ public class ConceptAssociationHandler {
     ceaRecord.store();
   }
 
+  /**
+   * Saves the concept associations of new scoped identifiers by scoped identifier id. The
+   * concepts are looked up by term with one query, new concepts are inserted with multi-row
+   * inserts and changed ones and the links are written as one batch each. Expects scoped
+   * identifiers that have no concept associations yet.
+   */
+  public static void saveAll(DSLContext ctx, Integer userId,
+      Map<Integer, List<ConceptAssociation>> conceptAssociations) {
+    Map<String, ConceptAssociation> byTerm = new LinkedHashMap<>();
+    conceptAssociations.values().forEach(associations -> associations
+        .forEach(conceptAssociation -> byTerm.put(conceptAssociation.getTerm(),
+            conceptAssociation)));
+    if (byTerm.isEmpty()) {
+      return;
+    }
+    Map<String, ConceptsRecord> concepts = new HashMap<>();
+    ctx.selectFrom(CONCEPTS)
+        .where(CONCEPTS.TERM.in(byTerm.keySet()))
+        .fetch()
+        .forEach(concept -> concepts.putIfAbsent(concept.getTerm(), concept));
+    List<ConceptsRecord> changed = new ArrayList<>();
+    List<ConceptsRecord> created = new ArrayList<>();
+    byTerm.forEach((term, conceptAssociation) -> {
+      ConceptsRecord conceptRecord = concepts.get(term);
+      if (conceptRecord == null) {
+        conceptRecord = ctx.newRecord(CONCEPTS);
+        conceptRecord.setCreatedBy(userId);
+        created.add(conceptRecord);
+      } else {
+        changed.add(conceptRecord);
+      }
+      conceptRecord.setVersion(conceptAssociation.getVersion());
+      conceptRecord.setText(conceptAssociation.getText());
+      conceptRecord.setTerm(conceptAssociation.getTerm());
+      conceptRecord.setSystem(conceptAssociation.getSystem());
+      conceptRecord.setSourceId(conceptAssociation.getSourceId());
+    });
+    if (!changed.isEmpty()) {
+      ctx.batchStore(changed).execute();
+    }
+    for (int from = 0; from < created.size(); from += DaoUtil.BATCH_SIZE) {
+      InsertSetMoreStep<ConceptsRecord> insert = null;
+      for (ConceptsRecord conceptRecord : created.subList(from,
+          Math.min(from + DaoUtil.BATCH_SIZE, created.size()))) {
+        insert = insert == null
+            ? ctx.insertInto(CONCEPTS).set(conceptRecord)
+            : insert.newRecord().set(conceptRecord);
+      }
+      insert.returning(CONCEPTS.ID, CONCEPTS.TERM).fetch()
+          .forEach(concept -> concepts.put(concept.getTerm(), concept));
+    }
+
+    List<ConceptElementAssociationsRecord> links = new ArrayList<>();
+    conceptAssociations.forEach((scopedIdentifierId, associations) -> {
+      Set<Integer> linked = new HashSet<>();
+      for (ConceptAssociation conceptAssociation : associations) {
+        Integer conceptId = concepts.get(conceptAssociation.getTerm()).getId();
+        if (linked.add(conceptId)) {
+          ConceptElementAssociationsRecord link = ctx.newRecord(CONCEPT_ELEMENT_ASSOCIATIONS);
+          link.setScopedidentifierId(scopedIdentifierId);
+          link.setConceptId(conceptId);
+          link.setLinktype(conceptAssociation.getLinktype());
+          link.setCreatedBy(userId);
+          links.add(link);
+        }
+      }
+    });
+    if (!links.isEmpty()) {
+      ctx.batchInsert(links).execute();
+    }
+  }
+
   /**
    * Copy concept associations from one scoped identifier to another.
    */
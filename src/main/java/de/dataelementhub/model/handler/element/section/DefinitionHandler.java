@@ -4,11 +4,18 @@ import static de.dataelementhub.dal.jooq.Tables.DEFINITION;
 
 import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
 import de.dataelementhub.dal.jooq.tables.records.DefinitionRecord;
+import de.dataelementhub.model.dto.element.Element;
 import de.dataelementhub.model.dto.element.section.Definition;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 
 /**
  * Definition Handler.
@@ -32,6 +39,80 @@ public class DefinitionHandler {
     return convert(definitions);
   }
 
+  /**
+   * Get all definitions of these scoped identifiers with one query.
+   */
+  public static Map<Integer, List<Definition>> get(DSLContext ctx,
+      Collection<Integer> scopedIdentifierIds) {
+    Map<Integer, List<Definition>> definitions = new HashMap<>();
+    if (scopedIdentifierIds.isEmpty()) {
+      return definitions;
+    }
+    ctx.selectFrom(DEFINITION)
+        .where(DEFINITION.SCOPED_IDENTIFIER_ID.in(scopedIdentifierIds))
+        .orderBy(DEFINITION.ID)
+        .forEach(definitionRecord -> definitions
+            .computeIfAbsent(definitionRecord.getScopedIdentifierId(), id -> new ArrayList<>())
+            .add(convert(definitionRecord
+                .into(de.dataelementhub.dal.jooq.tables.pojos.Definition.class))));
+    return definitions;
+  }
+
+  /**
+   * Get the definitions for a scoped identifier in the requested languages (Accept-Language
+   * style). All definitions are returned if no language or the wildcard is requested, or if the
+   * scoped identifier has no definition in any of the requested languages.
+   */
+  public static List<Definition> get(DSLContext ctx, int scopedIdentifierId, String languages) {
+    List<String> requestedLanguages = Element.parseLanguages(languages);
+    if (requestedLanguages.isEmpty()) {
+      return get(ctx, scopedIdentifierId);
+    }
+    List<Definition> definitions = get(ctx,
+        Collections.singletonList(scopedIdentifierId), requestedLanguages)
+        .get(scopedIdentifierId);
+    return definitions != null ? definitions : new ArrayList<>();
+  }
+
+  /**
+   * Get the definitions in the requested languages of these scoped identifiers with one query,
+   * ordered by id. Scoped identifiers without a definition in any of the requested languages get
+   * all their definitions.
+   */
+  public static Map<Integer, List<Definition>> get(DSLContext ctx,
+      Collection<Integer> scopedIdentifierIds, List<String> requestedLanguages) {
+    Map<Integer, List<Definition>> definitions = new HashMap<>();
+    if (scopedIdentifierIds.isEmpty()) {
+      return definitions;
+    }
+    ctx.selectFrom(DEFINITION)
+        .where(DEFINITION.SCOPED_IDENTIFIER_ID.in(scopedIdentifierIds))
+        .and(languageCondition(DEFINITION, requestedLanguages))
+        .orderBy(DEFINITION.ID)
+        .forEach(definitionRecord -> definitions
+            .computeIfAbsent(definitionRecord.getScopedIdentifierId(), id -> new ArrayList<>())
+            .add(convert(definitionRecord
+                .into(de.dataelementhub.dal.jooq.tables.pojos.Definition.class))));
+    return definitions;
+  }
+
+  /**
+   * Returns a condition that keeps the definitions in the requested languages, or all definitions
+   * of a scoped identifier that has none in these languages. This is the language rule of element
+   * reads, paths and listviews.
+   */
+  public static Condition languageCondition(
+      de.dataelementhub.dal.jooq.tables.Definition definition, List<String> requestedLanguages) {
+    if (requestedLanguages.isEmpty()) {
+      return DSL.trueCondition();
+    }
+    de.dataelementhub.dal.jooq.tables.Definition other = DEFINITION.as("other_definition");
+    return DSL.lower(definition.LANGUAGE).in(requestedLanguages)
+        .or(DSL.notExists(DSL.selectOne().from(other)
+            .where(other.SCOPED_IDENTIFIER_ID.eq(definition.SCOPED_IDENTIFIER_ID))
+            .and(DSL.lower(other.LANGUAGE).in(requestedLanguages))));
+  }
+
   /**
    * Convert a list of Definition objects of DataElementHub DAL to a list of Definition objects of
    * DataElementHub Model.
@@ -121,11 +202,15 @@ public class DefinitionHandler {
   }
 
   /**
-   * Save definitions.
+   * Save definitions as one JDBC batch.
    */
   public static void saveDefinitions(DSLContext ctx,
       List<de.dataelementhub.dal.jooq.tables.pojos.Definition> definitions) {
-    definitions.forEach(d -> ctx.newRecord(DEFINITION, d).store());
+    if (definitions.isEmpty()) {
+      return;
+    }
+    ctx.batchStore(definitions.stream().map(d -> ctx.newRecord(DEFINITION, d))
+        .collect(Collectors.toList())).execute();
   }
 
   /**
@@ -4,7 +4,6 @@ import static de.dataelementhub.dal.jooq.Routines.getScopedIdentifierByUrn;
 import static de.dataelementhub.dal.jooq.Routines.getValueDomainScopedIdentifierByDataelementUrn;
 import static de.dataelementhub.dal.jooq.Tables.ELEMENT;
 import static de.dataelementhub.dal.jooq.Tables.SCOPED_IDENTIFIER;
-import static org.jooq.impl.DSL.noCondition;
 
 import de.dataelementhub.dal.jooq.Routines;
 import de.dataelementhub.dal.jooq.enums.ElementType;
@@ -15,14 +14,28 @@ import de.dataelementhub.dal.jooq.tables.Element;
 import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
 import de.dataelementhub.dal.jooq.tables.records.IdentifiedElementRecord;
 import de.dataelementhub.dal.jooq.tables.records.ScopedIdentifierRecord;
+import de.dataelementhub.model.DaoUtil;
 import de.dataelementhub.model.dto.element.Namespace;
 import de.dataelementhub.model.dto.element.section.Identification;
+import de.dataelementhub.model.handler.CacheInvalidationBus;
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
 import de.dataelementhub.model.handler.ElementRelationHandler;
 import de.dataelementhub.model.handler.element.NamespaceHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
-import org.jooq.Condition;
+import java.util.stream.Collectors;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertSetMoreStep;
+import org.jooq.SelectField;
+import org.jooq.Table;
 import org.jooq.impl.DSL;
 
 /**
@@ -98,6 +111,34 @@ public class IdentificationHandler {
     return ctx.selectQuery(getScopedIdentifierByUrn(urn)).fetchOneInto(ScopedIdentifier.class);
   }
 
+  /**
+   * Returns the scoped identifiers of these urns by urn, resolved with one query. Urns without a
+   * scoped identifier are not contained in the result.
+   */
+  public static Map<String, ScopedIdentifier> getScopedIdentifiers(DSLContext ctx,
+      Collection<String> urns) {
+    Map<String, ScopedIdentifier> scopedIdentifiers = new HashMap<>();
+    if (urns.isEmpty()) {
+      return scopedIdentifiers;
+    }
+    Field<String> requestedUrn = DSL.field(DSL.name("requested", "urn"), String.class);
+    Table<?> scopedIdentifier = getScopedIdentifierByUrn(requestedUrn);
+    List<SelectField<?>> fields = new ArrayList<>();
+    fields.add(requestedUrn);
+    fields.addAll(Arrays.asList(scopedIdentifier.fields()));
+    ctx.select(fields)
+        .from(DSL.unnest(urns.toArray(new String[0])).as("requested", "urn"))
+        .crossJoin(DSL.lateral(scopedIdentifier))
+        .fetch()
+        .forEach(record -> {
+          ScopedIdentifier found = record.into(ScopedIdentifier.class);
+          if (found.getId() != null) {
+            scopedIdentifiers.put(record.get(requestedUrn), found);
+          }
+        });
+    return scopedIdentifiers;
+  }
+
   /**
    * Returns the specified scoped identifier.
    */
@@ -138,8 +179,15 @@ public class IdentificationHandler {
     // Set proper values for creating new elements
     scopedIdentifier.setStatus(identification.getStatus());
     if (identification.getRevision() == null) {
-      scopedIdentifier.setVersion(
-          0);  //version = 0, when creating new elements so that the trigger in the db is called
+      if (identification.getElementType() == ElementType.NAMESPACE) {
+        scopedIdentifier.setVersion(
+            0);  //version = 0, when creating new namespaces so that the trigger in the db is called
+      } else {
+        // Elements never get trigger identifiers, they could collide with reserved blocks
+        scopedIdentifier.setIdentifier(IdentifierAllocator.next(ctx,
+            scopedIdentifier.getNamespaceId(), identification.getElementType()));
+        scopedIdentifier.setVersion(1);
+      }
     }
     if (scopedIdentifier.getUuid() == null) {
       scopedIdentifier.setUuid(UUID.randomUUID());
@@ -152,37 +200,59 @@ public class IdentificationHandler {
     return scopedIdentifierRecord.into(ScopedIdentifier.class);
   }
 
+  /**
+   * Create the scoped identifiers for a list of new elements of one namespace (database id) with
+   * multi-row inserts. Identifiers are reserved with one round-trip per element type, so the
+   * trigger in the db is not needed. The stored scoped identifiers are returned in the given order.
+   */
+  public static List<ScopedIdentifier> createAll(DSLContext ctx, int userId,
+      List<Identification> identifications, List<Integer> elementIds, int namespaceId) {
+    List<ScopedIdentifier> scopedIdentifiers = new ArrayList<>();
+    Map<ElementType, List<ScopedIdentifier>> scopedIdentifiersByType =
+        new EnumMap<>(ElementType.class);
+    for (int i = 0; i < identifications.size(); i++) {
+      ScopedIdentifier scopedIdentifier =
+          convert(userId, identifications.get(i), elementIds.get(i), namespaceId);
+      scopedIdentifier.setVersion(1);
+      scopedIdentifier.setUuid(UUID.randomUUID());
+      scopedIdentifiers.add(scopedIdentifier);
+      scopedIdentifiersByType.computeIfAbsent(scopedIdentifier.getElementType(),
+          k -> new ArrayList<>()).add(scopedIdentifier);
+    }
+    for (Map.Entry<ElementType, List<ScopedIdentifier>> entry
+        : scopedIdentifiersByType.entrySet()) {
+      List<Integer> identifiers = IdentifierAllocator.reserve(ctx, namespaceId, entry.getKey(),
+          entry.getValue().size());
+      for (int i = 0; i < identifiers.size(); i++) {
+        entry.getValue().get(i).setIdentifier(identifiers.get(i));
+      }
+    }
+
+    Map<UUID, ScopedIdentifier> stored = new HashMap<>();
+    for (int from = 0; from < scopedIdentifiers.size(); from += DaoUtil.BATCH_SIZE) {
+      List<ScopedIdentifier> chunk = scopedIdentifiers.subList(from,
+          Math.min(from + DaoUtil.BATCH_SIZE, scopedIdentifiers.size()));
+      InsertSetMoreStep<ScopedIdentifierRecord> insert = null;
+      for (ScopedIdentifier scopedIdentifier : chunk) {
+        ScopedIdentifierRecord record = ctx.newRecord(SCOPED_IDENTIFIER, scopedIdentifier);
+        insert = insert == null
+            ? ctx.insertInto(SCOPED_IDENTIFIER).set(record)
+            : insert.newRecord().set(record);
+      }
+      insert.returning().fetch().into(ScopedIdentifier.class)
+          .forEach(si -> stored.put(si.getUuid(), si));
+    }
+    return scopedIdentifiers.stream().map(si -> stored.get(si.getUuid()))
+        .collect(Collectors.toList());
+  }
+
 
   /**
    * Returns a free identifier for the given namespace and element type.
    */
   public static String getFreeIdentifier(DSLContext ctx, Integer namespaceId,
       ElementType type) {
-
-    Condition elementTypeCondition = noCondition();
-    if (type.getLiteral().toLowerCase().endsWith("value_domain")) {
-      elementTypeCondition = elementTypeCondition.and(
-          SCOPED_IDENTIFIER.ELEMENT_TYPE.like("%VALUE_DOMAIN%"));
-    } else {
-      elementTypeCondition = elementTypeCondition.and(SCOPED_IDENTIFIER.ELEMENT_TYPE.eq(type));
-    }
-
-    Element ns = ELEMENT.as("ns");
-    Integer max = ctx.select(DSL.max(
-            DSL.when(SCOPED_IDENTIFIER.IDENTIFIER.cast(String.class).likeRegex("^\\d+$"),
-                    SCOPED_IDENTIFIER.IDENTIFIER.cast(Integer.class))
-                .else_(0)))
-        .from(SCOPED_IDENTIFIER)
-        .leftJoin(ns)
-        .on(ns.ID.eq(SCOPED_IDENTIFIER.NAMESPACE_ID))
-        .where(ns.ID.eq(namespaceId))
-        .and(elementTypeCondition)
-        .fetchOne().value1();
-    if (max != null) {
-      return String.valueOf(max + 1);
-    } else {
-      return "1";
-    }
+    return String.valueOf(IdentifierAllocator.next(ctx, namespaceId, type));
   }
 
   /**
@@ -218,6 +288,7 @@ public class IdentificationHandler {
                 .and(SCOPED_IDENTIFIER.NAMESPACE_ID.eq(identification.getNamespaceId()))
                 .and(SCOPED_IDENTIFIER.VERSION.eq(identification.getRevision()))))
         .execute();
+    publishInvalidation(ctx, identification.getUrn());
   }
 
   /**
@@ -253,6 +324,39 @@ public class IdentificationHandler {
     return convert(ctx, scopedIdentifier);
   }
 
+  /**
+   * Convert urns to Identification objects with one query for the scoped identifiers and one for
+   * the namespace urns. Urns that do not exist are not contained in the result.
+   */
+  public static Map<String, Identification> fromUrns(DSLContext ctx, Collection<String> urns) {
+    return convert(ctx, getScopedIdentifiers(ctx, urns));
+  }
+
+  /**
+   * Convert scoped identifiers by urn to Identification objects by urn. The namespace urns are
+   * read with one query.
+   */
+  public static Map<String, Identification> convert(DSLContext ctx,
+      Map<String, ScopedIdentifier> scopedIdentifiers) {
+    Map<Integer, String> namespaceUrns = NamespaceHandler.getNamespaceUrnsByIds(ctx,
+        scopedIdentifiers.values().stream().map(ScopedIdentifier::getNamespaceId)
+            .collect(Collectors.toSet()));
+    Map<String, Identification> identifications = new HashMap<>();
+    scopedIdentifiers.forEach((urn, scopedIdentifier) -> {
+      Identification identification = new Identification();
+      identification.setElementType(scopedIdentifier.getElementType());
+      identification.setNamespaceId(scopedIdentifier.getNamespaceId());
+      identification.setStatus(scopedIdentifier.getStatus());
+      identification.setIdentifier(scopedIdentifier.getIdentifier());
+      identification.setRevision(scopedIdentifier.getVersion());
+      identification.setUrn(urn);
+      identification.setNamespaceUrn(identification.getElementType() == ElementType.NAMESPACE
+          ? urn : namespaceUrns.get(scopedIdentifier.getNamespaceId()));
+      identifications.put(urn, identification);
+    });
+    return identifications;
+  }
+
   /**
    * Check if a String could be an urn. This only checks if the String has the correct "layout"
    */
@@ -282,6 +386,22 @@ public class IdentificationHandler {
     return toUrn(ctx, scopedIdentifier);
   }
 
+  /**
+   * Returns the urns of these scoped identifier ids by id with one query.
+   */
+  public static Map<Integer, String> toUrns(DSLContext ctx,
+      Collection<Integer> scopedIdentifierIds) {
+    if (scopedIdentifierIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    de.dataelementhub.dal.jooq.tables.ScopedIdentifier si = SCOPED_IDENTIFIER.as("si");
+    Field<String> urn = Routines.urn(DSL.field(si));
+    return ctx.select(si.ID, urn)
+        .from(si)
+        .where(si.ID.in(scopedIdentifierIds))
+        .fetchMap(si.ID, urn);
+  }
+
   /**
    * Extract the namespace identifier (not id) from the urn.
    */
@@ -343,6 +463,33 @@ public class IdentificationHandler {
                 .and(SCOPED_IDENTIFIER.NAMESPACE_ID.eq(identification.getNamespaceId()))
                 .and(SCOPED_IDENTIFIER.VERSION.eq(identification.getRevision()))))
         .execute();
+    publishInvalidation(ctx, identification.getUrn());
+  }
+
+  /**
+   * Publish that the cached element with the given urn changed its status.
+   */
+  private static void publishInvalidation(DSLContext ctx, String urn) {
+    if (urn != null) {
+      CacheInvalidationBus.publish(ctx, Region.ELEMENT, urn);
+    }
+  }
+
+  /**
+   * Returns a mark that changes whenever a cached element may have changed: when an element is
+   * outdated, a namespace revision is created or a namespace is hidden or shown.
+   */
+  public static long getChangeMark(DSLContext ctx) {
+    Field<Integer> outdated = DSL.count()
+        .filterWhere(SCOPED_IDENTIFIER.STATUS.eq(Status.OUTDATED));
+    Field<Integer> lastNamespace = DSL.max(SCOPED_IDENTIFIER.ID)
+        .filterWhere(SCOPED_IDENTIFIER.ELEMENT_TYPE.eq(ElementType.NAMESPACE));
+    Field<Integer> hidden = DSL.field(ctx.selectCount().from(ELEMENT)
+        .where(ELEMENT.HIDDEN.isTrue()));
+    return ctx.select(outdated, lastNamespace, hidden)
+        .from(SCOPED_IDENTIFIER)
+        .fetchOne(record -> 31L * 31 * record.value1()
+            + 31L * (record.value2() != null ? record.value2() : 0) + record.value3());
   }
 
   /**
@@ -368,12 +515,21 @@ public class IdentificationHandler {
   public static ScopedIdentifier importToNamespace(DSLContext ctx, int userId,
       ScopedIdentifier sourceIdentifier,
       int targetNamespaceId) {
-    ScopedIdentifier targetIdentifier = new ScopedIdentifier();
-    String freeIdentifier = getFreeIdentifier(ctx, targetNamespaceId,
+    int freeIdentifier = IdentifierAllocator.next(ctx, targetNamespaceId,
         sourceIdentifier.getElementType());
+    return importToNamespace(ctx, userId, sourceIdentifier, targetNamespaceId, freeIdentifier);
+  }
+
+  /**
+   * Import an element to another Namespace with an identifier that was already reserved via
+   * {@link IdentifierAllocator}. Create a new ScopedIdentifier, linking to the element.
+   */
+  public static ScopedIdentifier importToNamespace(DSLContext ctx, int userId,
+      ScopedIdentifier sourceIdentifier, int targetNamespaceId, int targetIdentifierValue) {
+    ScopedIdentifier targetIdentifier = new ScopedIdentifier();
 
     // Importing will always lead to a new identifier.
-    targetIdentifier.setIdentifier(Integer.parseInt(freeIdentifier));
+    targetIdentifier.setIdentifier(targetIdentifierValue);
     targetIdentifier.setVersion(1);
     targetIdentifier.setElementType(sourceIdentifier.getElementType());
     targetIdentifier.setCreatedBy(userId);
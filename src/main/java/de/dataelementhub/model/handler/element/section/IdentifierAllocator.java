@@ -0,0 +1,220 @@
+package de.dataelementhub.model.handler.element.section;
+
+import static de.dataelementhub.dal.jooq.Tables.SCOPED_IDENTIFIER;
+
+import de.dataelementhub.dal.jooq.enums.ElementType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.Sequence;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+/**
+ * Identifier Allocator.
+ *
+ * <p>Hands out free identifiers per namespace and element type family. Every value of the
+ * database sequence of a (namespace, type family) reserves a block of identifiers that starts at
+ * the value and is as long as the increment of the sequence. Blocks are handed out from memory,
+ * so only every n-th allocation needs a round-trip, and a single {@code nextval} reserves a block
+ * without any lock. All elements are created with identifiers from this allocator, only
+ * namespaces get their identifiers from the database trigger, so the sequences are authoritative.
+ *
+ * <p>The sequences are expected to be created by the DAL. A sequence that does not exist yet is
+ * created once and started after the highest identifier already used in its namespace and type
+ * family; this is the only time scoped identifiers are scanned. If a data source is set, missing
+ * sequences are created on a connection of their own, so they are committed even if the
+ * transaction that needed them is rolled back. Otherwise they are created in the transaction of
+ * the caller and checked again before every reservation, so a sequence that was rolled back is
+ * created again instead of failing every later reservation.
+ */
+public class IdentifierAllocator {
+
+  public static final int DEFAULT_BLOCK_SIZE = 50;
+  private static final String VALUE_DOMAIN_FAMILY = "VALUE_DOMAIN";
+  private static final String SEQUENCE_PREFIX = "dehub_identifier_";
+
+  private static final Map<String, IdentifierBlock> blocks = new ConcurrentHashMap<>();
+  private static final Map<String, Integer> increments = new ConcurrentHashMap<>();
+  private static volatile int blockSize = DEFAULT_BLOCK_SIZE;
+  private static volatile DataSource dataSource;
+
+  /**
+   * Set the number of identifiers that are reserved per round-trip. Only applies to sequences
+   * that are created afterwards.
+   */
+  public static void setBlockSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Block size must be positive: " + size);
+    }
+    blockSize = size;
+  }
+
+  /**
+   * Set the data source missing sequences are created with. Null creates them in the
+   * transaction of the caller.
+   */
+  public static void setDataSource(DataSource newDataSource) {
+    dataSource = newDataSource;
+    increments.clear();
+  }
+
+  /**
+   * Returns the next free identifier for the given namespace (database id) and element type.
+   */
+  public static int next(DSLContext ctx, int namespaceId, ElementType type) {
+    IdentifierBlock block = blocks.computeIfAbsent(namespaceId + ":" + getTypeFamily(type),
+        k -> new IdentifierBlock());
+    synchronized (block) {
+      if (block.next >= block.end) {
+        List<Integer> reserved = reserveBlocks(ctx, namespaceId, type, 1);
+        block.next = reserved.get(0);
+        block.end = reserved.get(reserved.size() - 1) + 1;
+      }
+      return block.next++;
+    }
+  }
+
+  /**
+   * Reserves the given number of identifiers with a single round-trip. The identifiers are
+   * ascending, but not necessarily contiguous. They bypass the in-memory blocks and are meant for
+   * bulk imports and copies.
+   */
+  public static List<Integer> reserve(DSLContext ctx, int namespaceId, ElementType type,
+      int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Count must be positive: " + count);
+    }
+    return reserveBlocks(ctx, namespaceId, type, count).subList(0, count);
+  }
+
+  /**
+   * Value domains share one identifier space, all other element types have their own.
+   */
+  static String getTypeFamily(ElementType type) {
+    if (type.getLiteral().toUpperCase().endsWith(VALUE_DOMAIN_FAMILY)) {
+      return VALUE_DOMAIN_FAMILY;
+    }
+    return type.getLiteral().toUpperCase();
+  }
+
+  /**
+   * Returns the condition selecting all scoped identifiers of the type family of the given type.
+   */
+  static Condition typeFamilyCondition(ElementType type) {
+    if (VALUE_DOMAIN_FAMILY.equals(getTypeFamily(type))) {
+      return SCOPED_IDENTIFIER.ELEMENT_TYPE.like("%" + VALUE_DOMAIN_FAMILY + "%");
+    }
+    return SCOPED_IDENTIFIER.ELEMENT_TYPE.eq(type);
+  }
+
+  /**
+   * Reserves as many blocks as needed for at least count identifiers and returns all of their
+   * identifiers.
+   */
+  private static List<Integer> reserveBlocks(DSLContext ctx, int namespaceId, ElementType type,
+      int count) {
+    String sequenceName =
+        SEQUENCE_PREFIX + namespaceId + "_" + getTypeFamily(type).toLowerCase();
+    Sequence<Long> sequence = DSL.sequence(DSL.name(sequenceName), SQLDataType.BIGINT);
+    int increment = getIncrement(ctx, sequence, namespaceId, type);
+    int blockCount = (count + increment - 1) / increment;
+    List<Long> starts = ctx.select(sequence.nextval())
+        .from(DSL.generateSeries(1, blockCount))
+        .fetch(record -> record.value1());
+    List<Integer> identifiers = new ArrayList<>(blockCount * increment);
+    starts.stream().sorted().forEach(start -> {
+      for (int i = 0; i < increment; i++) {
+        identifiers.add(Math.toIntExact(start + i));
+      }
+    });
+    return identifiers;
+  }
+
+  /**
+   * Returns the increment, which is the block size, of a sequence and creates it if it does not
+   * exist yet.
+   */
+  private static int getIncrement(DSLContext ctx, Sequence<Long> sequence, int namespaceId,
+      ElementType type) {
+    Integer increment = increments.get(sequence.getName());
+    if (increment != null) {
+      return increment;
+    }
+    DataSource available = dataSource;
+    DSLContext sequenceCtx = available != null ? DSL.using(available, SQLDialect.POSTGRES) : ctx;
+    increment = createSequence(sequenceCtx, sequence, namespaceId, type);
+    if (available != null) {
+      // Only sequences committed on their own connection are known to stay
+      increments.put(sequence.getName(), increment);
+    }
+    return increment;
+  }
+
+  /**
+   * Create the sequence of a namespace and type family if the DAL did not, starting after the
+   * highest identifier in use and incremented by the block size.
+   *
+   * @return the increment of the sequence
+   */
+  private static int createSequence(DSLContext sequenceCtx, Sequence<Long> sequence,
+      int namespaceId, ElementType type) {
+    int size = blockSize;
+    Integer increment = readIncrement(sequenceCtx, sequence);
+    if (increment != null && increment == 1 && size > 1) {
+      // Sequences of single identifiers are switched to blocks, their last value stays used
+      sequenceCtx.alterSequence(sequence).incrementBy(size).execute();
+      return size;
+    }
+    if (increment != null) {
+      return increment;
+    }
+    Integer highestUsed = sequenceCtx.select(DSL.max(SCOPED_IDENTIFIER.IDENTIFIER))
+        .from(SCOPED_IDENTIFIER)
+        .where(SCOPED_IDENTIFIER.NAMESPACE_ID.eq(namespaceId))
+        .and(typeFamilyCondition(type))
+        .fetchOne().value1();
+    try {
+      sequenceCtx.createSequenceIfNotExists(sequence)
+          .startWith(highestUsed != null ? highestUsed + 1L : 1L)
+          .incrementBy(size)
+          .minvalue(1L)
+          .execute();
+    } catch (DataAccessException e) {
+      // Another node created the sequence at the same time
+      increment = readIncrement(sequenceCtx, sequence);
+      if (increment == null) {
+        throw e;
+      }
+      return increment;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the increment of an existing sequence or null if it does not exist.
+   */
+  private static Integer readIncrement(DSLContext sequenceCtx, Sequence<Long> sequence) {
+    Long increment = sequenceCtx.select(DSL.field("increment_by", Long.class))
+        .from(DSL.table(DSL.name("pg_sequences")))
+        .where(DSL.field("sequencename", String.class).eq(sequence.getName()))
+        .and(DSL.field("schemaname", String.class).eq(DSL.field("current_schema()",
+            String.class)))
+        .fetchOne(record -> record.value1());
+    return increment != null ? Math.toIntExact(increment) : null;
+  }
+
+  /**
+   * Identifiers [next, end) reserved for one namespace and type family.
+   */
+  private static class IdentifierBlock {
+    private int next;
+    private int end;
+  }
+}
@@ -11,11 +11,14 @@ import de.dataelementhub.model.dto.element.Element;
 import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.Member;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.jooq.Result;
 
 /**
  * Member Handler.
@@ -54,6 +57,34 @@ public class MemberHandler {
     return members;
   }
 
+  /**
+   * Get the members of these DataElementGroups or Records by their scoped identifier ids, with
+   * one query for the members and one for their urns.
+   **/
+  public static Map<Integer, List<Member>> get(
+      DSLContext ctx, Collection<Integer> superScopedIdentifierIds) {
+    Map<Integer, List<Member>> members = new HashMap<>();
+    if (superScopedIdentifierIds.isEmpty()) {
+      return members;
+    }
+    Result<Record3<Integer, Integer, Status>> subScopedIdentifiers = ctx
+        .select(SCOPED_IDENTIFIER_HIERARCHY.SUPER_ID, SCOPED_IDENTIFIER.ID,
+            SCOPED_IDENTIFIER.STATUS)
+        .from(SCOPED_IDENTIFIER_HIERARCHY)
+        .join(SCOPED_IDENTIFIER).on(SCOPED_IDENTIFIER.ID.eq(SCOPED_IDENTIFIER_HIERARCHY.SUB_ID))
+        .where(SCOPED_IDENTIFIER_HIERARCHY.SUPER_ID.in(superScopedIdentifierIds))
+        .fetch();
+    Map<Integer, String> urns = IdentificationHandler.toUrns(ctx,
+        subScopedIdentifiers.getValues(SCOPED_IDENTIFIER.ID));
+    subScopedIdentifiers.forEach(subScopedIdentifier -> {
+      Member member = new Member();
+      member.setElementUrn(urns.get(subScopedIdentifier.value2()));
+      member.setStatus(subScopedIdentifier.value3());
+      members.computeIfAbsent(subScopedIdentifier.value1(), id -> new ArrayList<>()).add(member);
+    });
+    return members;
+  }
+
   /**
    * Update Members (DataElements/Records) for a DataElementGroup or Record.
    **/
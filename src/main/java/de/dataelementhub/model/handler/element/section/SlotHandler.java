@@ -10,7 +10,10 @@ import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
 import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.Slot;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.jooq.DSLContext;
 
@@ -42,6 +45,23 @@ public class SlotHandler {
   }
 
 
+  /**
+   * Get the slots of these scoped identifiers with one query.
+   */
+  public static Map<Integer, List<Slot>> get(DSLContext ctx,
+      Collection<Integer> scopedIdentifierIds) {
+    Map<Integer, List<Slot>> slots = new HashMap<>();
+    if (scopedIdentifierIds.isEmpty()) {
+      return slots;
+    }
+    ctx.selectFrom(SLOT)
+        .where(SLOT.SCOPED_IDENTIFIER_ID.in(scopedIdentifierIds))
+        .fetchInto(de.dataelementhub.dal.jooq.tables.pojos.Slot.class)
+        .forEach(slot -> slots.computeIfAbsent(slot.getScopedIdentifierId(),
+            id -> new ArrayList<>()).add(convert(slot)));
+    return slots;
+  }
+
   /**
    * Get a Slot.
    */
@@ -102,11 +122,15 @@ public class SlotHandler {
   }
 
   /**
-   * Save a list of slots.
+   * Save a list of slots as one JDBC batch.
    */
   public static void saveSlots(DSLContext ctx,
       List<de.dataelementhub.dal.jooq.tables.pojos.Slot> slots) {
-    slots.forEach(d -> ctx.newRecord(SLOT, d).store());
+    if (slots.isEmpty()) {
+      return;
+    }
+    ctx.batchStore(slots.stream().map(s -> ctx.newRecord(SLOT, s))
+        .collect(Collectors.toList())).execute();
   }
 
   /**
@@ -19,8 +19,14 @@ import de.dataelementhub.model.handler.element.section.validation.DatetimeHandle
 import de.dataelementhub.model.handler.element.section.validation.NumericHandler;
 import de.dataelementhub.model.handler.element.section.validation.PermittedValuesHandler;
 import de.dataelementhub.model.handler.element.section.validation.TextHandler;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
 
 /**
  * ValueDomain Handler.
@@ -33,11 +39,20 @@ public class ValueDomainHandler extends ElementHandler {
    */
   public static ValueDomain get(
       DSLContext ctx, int userId, Identification identification) {
+    return get(ctx, userId, identification, null);
+  }
+
+  /**
+   * Get a value domain with only the definitions in the requested languages
+   * (Accept-Language style, null for all languages).
+   */
+  public static ValueDomain get(
+      DSLContext ctx, int userId, Identification identification, String languages) {
     IdentifiedElementRecord identifiedElementRecord = ElementHandler
         .getIdentifiedElementRecord(ctx, identification);
 
     de.dataelementhub.model.dto.element.Element element = ElementHandler
-        .convertToElement(ctx, identification, identifiedElementRecord);
+        .convertToElement(ctx, identification, identifiedElementRecord, languages);
 
     Element valueDomainElement = identifiedElementRecord.into(Element.class);
 
@@ -49,6 +64,20 @@ public class ValueDomainHandler extends ElementHandler {
     valueDomain
         .setConceptAssociations(ConceptAssociationHandler.get(ctx, element.getIdentification()));
 
+    setValidation(ctx, userId, valueDomain, valueDomainElement, identification);
+    Integer namespaceIdentifier = NamespaceHandler.getNamespaceIdByUrn(ctx,
+        identification.getNamespaceUrn());
+    valueDomain.getIdentification().setNamespaceUrn(identification.getNamespaceUrn());
+    valueDomain.getIdentification().setNamespaceId(namespaceIdentifier);
+    return valueDomain;
+  }
+
+  /**
+   * Set the validation of a value domain of the given type from its element. The permitted values
+   * of enumerated value domains are read from the database.
+   */
+  public static void setValidation(DSLContext ctx, int userId, ValueDomain valueDomain,
+      Element valueDomainElement, Identification identification) {
     switch (valueDomain.getType()) {
       case ValueDomain.TYPE_DATE:
       case ValueDomain.TYPE_DATETIME:
@@ -67,11 +96,6 @@ public class ValueDomainHandler extends ElementHandler {
       default:
         break;
     }
-    Integer namespaceIdentifier = NamespaceHandler.getNamespaceIdByUrn(ctx,
-        identification.getNamespaceUrn());
-    valueDomain.getIdentification().setNamespaceUrn(identification.getNamespaceUrn());
-    valueDomain.getIdentification().setNamespaceId(namespaceIdentifier);
-    return valueDomain;
   }
 
   /**
@@ -126,6 +150,33 @@ public class ValueDomainHandler extends ElementHandler {
         .fetchOneInto(ScopedIdentifier.class);
   }
 
+  /**
+   * Returns the urns of the value domains of these dataelements by dataelement urn, with one
+   * query for the scoped identifiers and one for their urns.
+   */
+  public static Map<String, String> getValueDomainUrnsByElementUrns(DSLContext ctx,
+      Collection<String> dataElementUrns) {
+    Map<String, String> valueDomainUrns = new HashMap<>();
+    if (dataElementUrns.isEmpty()) {
+      return valueDomainUrns;
+    }
+    Field<String> requestedUrn = DSL.field(DSL.name("requested", "urn"), String.class);
+    Table<?> valueDomain = getValueDomainScopedIdentifierByDataelementUrn(requestedUrn);
+    Map<String, Integer> valueDomainIds = new HashMap<>();
+    ctx.select(requestedUrn, valueDomain.field("id", Integer.class))
+        .from(DSL.unnest(dataElementUrns.toArray(new String[0])).as("requested", "urn"))
+        .crossJoin(DSL.lateral(valueDomain))
+        .fetch()
+        .forEach(record -> {
+          if (record.value2() != null) {
+            valueDomainIds.put(record.value1(), record.value2());
+          }
+        });
+    Map<Integer, String> urns = IdentificationHandler.toUrns(ctx, valueDomainIds.values());
+    valueDomainIds.forEach((urn, id) -> valueDomainUrns.put(urn, urns.get(id)));
+    return valueDomainUrns;
+  }
+
   /**
    * Create a new ValueDomain of DataElementHub DAL with a Value Domain of DataElementHub Model.
    */
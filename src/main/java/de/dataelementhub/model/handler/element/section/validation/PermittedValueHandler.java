@@ -29,9 +29,19 @@ public class PermittedValueHandler {
    */
   public static PermittedValue get(
       DSLContext ctx, int userId, Identification identification) {
+    return get(ctx, userId, identification, null);
+  }
+
+  /**
+   * Get a permitted value with only the definitions in the requested languages
+   * (Accept-Language style, null for all languages).
+   */
+  public static PermittedValue get(
+      DSLContext ctx, int userId, Identification identification, String languages) {
     IdentifiedElementRecord identifiedElementRecord = ElementHandler
         .getIdentifiedElementRecord(ctx, identification);
-    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord);
+    Element element = ElementHandler.convertToElement(ctx, identification, identifiedElementRecord,
+        languages);
     element.getIdentification().setNamespaceUrn(
         NamespaceHandler.getNamespaceUrnById(ctx, element.getIdentification().getNamespaceId()));
 
@@ -0,0 +1,125 @@
+package de.dataelementhub.model.handler.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.MediaType;
+
+/**
+ * Export Cache Handler.
+ *
+ * <p>Keeps the archives of exports that only contain released elements. Released elements do not
+ * change within a revision, so the same urns, media type, export mode and label always produce the
+ * same archive. Archives are stored under a hash of this content in the cache directory of the
+ * export directory and linked into the directories of later exports with the same content.
+ */
+public class ExportCacheHandler {
+
+  public static final String CACHE_DIRECTORY = "cache";
+
+  /**
+   * Returns the cache key of an export. The urns are sorted, so the order in which elements were
+   * requested or resolved does not matter.
+   */
+  public static String cacheKey(List<String> urns, MediaType mediaType, Boolean fullExport,
+      String label) {
+    List<String> sortedUrns = new ArrayList<>(urns);
+    Collections.sort(sortedUrns);
+    StringBuilder content = new StringBuilder()
+        .append(mediaType.getType()).append('/').append(mediaType.getSubtype()).append('\n')
+        .append(Boolean.TRUE.equals(fullExport)).append('\n')
+        .append(label == null ? "" : label).append('\n');
+    sortedUrns.forEach(urn -> content.append(urn).append('\n'));
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder();
+      for (byte b : hash) {
+        key.append(String.format("%02x", b));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the cached archive of a key or null if there is none. Archives older than the
+   * retention period are deleted instead of being returned.
+   */
+  public static File get(String exportDirectory, String key, int retentionInDays) {
+    File cached = cacheFile(exportDirectory, key);
+    if (!cached.isFile()) {
+      return null;
+    }
+    if (isExpired(cached, retentionInDays)) {
+      cached.delete();
+      return null;
+    }
+    return cached;
+  }
+
+  /**
+   * Store the archive of an export under its key. The archive is linked into the cache if the
+   * file system supports it and copied otherwise.
+   */
+  public static void put(String exportDirectory, String key, File archive) throws IOException {
+    File cached = cacheFile(exportDirectory, key);
+    cached.getParentFile().mkdirs();
+    File temporary = new File(cached.getParent(), key + "-" + System.nanoTime() + ".tmp");
+    link(archive, temporary);
+    Files.move(temporary.toPath(), cached.toPath(), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Make an archive available under another path without writing it again if possible.
+   */
+  public static void link(File archive, File target) throws IOException {
+    try {
+      Files.createLink(target.toPath(), archive.toPath());
+    } catch (UnsupportedOperationException | IOException e) {
+      Files.copy(archive.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Delete all cached archives older than the retention period.
+   *
+   * @return the number of deleted archives.
+   */
+  public static int deleteExpired(String exportDirectory, int retentionInDays) {
+    File[] cached = new File(exportDirectory + File.separator + CACHE_DIRECTORY)
+        .listFiles(File::isFile);
+    int deleted = 0;
+    if (cached != null) {
+      for (File archive : cached) {
+        if (isExpired(archive, retentionInDays) && archive.delete()) {
+          deleted++;
+        }
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * Returns true if a cached archive is older than the retention period.
+   */
+  public static boolean isExpired(File cached, int retentionInDays) {
+    return System.currentTimeMillis() - cached.lastModified()
+        > TimeUnit.DAYS.toMillis(retentionInDays);
+  }
+
+  private static File cacheFile(String exportDirectory, String key) {
+    return new File(exportDirectory + File.separator + CACHE_DIRECTORY + File.separator + key
+        + ".zip");
+  }
+}
@@ -2,16 +2,22 @@ package de.dataelementhub.model.handler.export;
 
 import static de.dataelementhub.model.handler.export.StagedElementHandler.elementsToStagedElements;
 
+import de.dataelementhub.dal.jooq.enums.Status;
 import de.dataelementhub.model.dto.element.StagedElement;
 import de.dataelementhub.model.dto.importexport.ExportRequest;
 import de.dataelementhub.model.dto.importexport.ImportExport;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import org.eclipse.persistence.internal.oxm.NamespacePrefixMapper;
@@ -35,12 +41,37 @@ public class ExportHandler {
   public static final String NAMESPACE_PREFIX_MAPPER = "com.sun.xml.bind.namespacePrefixMapper";
   public static List<String> nonExportable = new ArrayList<>();
   public static float exportProgress = 0;
+  private static volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * Set the compression level of export archives, from 0 (no compression) to 9 (best
+   * compression) or -1 for the default level.
+   */
+  public static void setCompressionLevel(int compressionLevel) {
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+        || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+    }
+    ExportHandler.compressionLevel = compressionLevel;
+  }
 
   /** Export defined Elements as Xml or Json. */
   public static void export(
       DSLContext ctx, ExportRequest exportRequest,
       int userId, MediaType mediaType, Boolean fullExport,
       String timestamp, String exportDirectory) {
+    export(ctx, exportRequest, userId, mediaType, fullExport, timestamp, exportDirectory, 0);
+  }
+
+  /**
+   * Export defined Elements as Xml or Json. Exports that only contain released elements are
+   * cached for the given number of days; a repeated export links the cached archive instead of
+   * generating it again.
+   */
+  public static void export(
+      DSLContext ctx, ExportRequest exportRequest,
+      int userId, MediaType mediaType, Boolean fullExport,
+      String timestamp, String exportDirectory, int cacheRetentionInDays) {
     System.setProperty(JAVAX_XML_BIND_CONTEXT_FACTORY, JAVAX_XML_BIND_CONTEXT_FACTORY_VALUE);
     String destination = exportDirectory + File.separator + userId + File.separator + timestamp
         + "-" + mediaType.getSubtype() + SUFFIX_PROCESSING;
@@ -48,6 +79,7 @@ public class ExportHandler {
     new File(destination).mkdir();
     nonExportable.clear();
     try {
+      ExportIndexHandler.put(exportDirectory, userId, new File(destination).getName());
       ImportExport export = new ImportExport();
       export.setLabel(exportRequest.getLabel());
       List<StagedElement> stagedElements = elementsToStagedElements(ctx,
@@ -56,18 +88,34 @@ public class ExportHandler {
           .collect(
               Collectors.toList());
       File exportedElements = new File(destination + File.separator + EXPORTED_ELEMENTS_FILENAME);
-      export.setStagedElements(stagedElements);
-      Future<String> response = export(export, timestamp, destination, mediaType);
+      File archive = new File(destination + File.separator + timestamp + ".zip");
+      String cacheKey = cacheRetentionInDays > 0 && stagedElements.stream()
+          .allMatch(se -> se.getIdentification().getStatus() == Status.RELEASED)
+          ? ExportCacheHandler.cacheKey(urns, mediaType, fullExport, exportRequest.getLabel())
+          : null;
+      File cached = cacheKey != null
+          ? ExportCacheHandler.get(exportDirectory, cacheKey, cacheRetentionInDays) : null;
+      if (cached != null) {
+        ExportCacheHandler.link(cached, archive);
+        exportProgress = 1;
+      } else {
+        export.setStagedElements(stagedElements);
+        export(export, timestamp, destination, mediaType).get();
+        if (cacheKey != null) {
+          ExportCacheHandler.put(exportDirectory, cacheKey, archive);
+        }
+      }
       Files.write(exportedElements.toPath(), urns, Charset.defaultCharset());
-      File processedFile = new File(String.valueOf(response.get()));
-      File newFile =
-          new File(String.valueOf(response.get()).replace(SUFFIX_PROCESSING, SUFFIX_DONE));
+      File processedFile = new File(destination);
+      File newFile = new File(destination.replace(SUFFIX_PROCESSING, SUFFIX_DONE));
       processedFile.renameTo(newFile);
+      ExportIndexHandler.put(exportDirectory, userId, newFile.getName());
     } catch (Exception e) {
       File processedFile = new File(destination);
       File newFile =
           new File(destination.replace(SUFFIX_PROCESSING, SUFFIX_ABORTED));
       processedFile.renameTo(newFile);
+      ExportIndexHandler.put(exportDirectory, userId, newFile.getName());
     }
   }
 
@@ -82,7 +130,7 @@ public class ExportHandler {
         || mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_JSON))) {
       throw new IllegalArgumentException("Unsupported media type: " + mediaType);
     }
-    File file = new File(destination + File.separator + "file." + mediaType.getSubtype());
+    File archive = new File(destination + File.separator + timestamp + ".zip");
     JAXBContext jaxbContext = JAXBContext.newInstance(ImportExport.class);
     Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
     NamespacePrefixMapper mapper =
@@ -96,9 +144,14 @@ public class ExportHandler {
     jaxbMarshaller.setProperty(JAXBContextProperties.MEDIA_TYPE, mediaType.toString());
     jaxbMarshaller.setProperty(JAXBContextProperties.JSON_WRAPPER_AS_ARRAY_NAME, true);
     jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-    jaxbMarshaller.marshal(export, file);
-    FileHandler.zip(file.getParent(), file.getParent() + "/" + timestamp
-        + ".zip", mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_XML));
-    return new AsyncResult<>(file.getParent());
+    // The export is marshalled straight into the archive instead of a temporary file
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+        new BufferedOutputStream(new FileOutputStream(archive)))) {
+      zipOutputStream.setLevel(compressionLevel);
+      zipOutputStream.putNextEntry(new ZipEntry("file." + mediaType.getSubtype()));
+      jaxbMarshaller.marshal(export, zipOutputStream);
+      zipOutputStream.closeEntry();
+    }
+    return new AsyncResult<>(archive.getParent());
   }
 }
@@ -0,0 +1,95 @@
+package de.dataelementhub.model.handler.export;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Export Index Handler.
+ *
+ * <p>Keeps a small index file per user that maps export ids to the names of their directories
+ * ({@code timestamp-subtype-status}), so export lookups do not scan and parse the whole export
+ * directory of the user. Users without an index get one built from a single directory scan.
+ */
+public class ExportIndexHandler {
+
+  public static final String INDEX_FILENAME = ".index";
+
+  /**
+   * Returns the export directory names of a user by export id, ordered by id.
+   */
+  public static synchronized Map<String, String> read(String exportDirectory, int userId) {
+    File index = indexFile(exportDirectory, userId);
+    Properties properties = new Properties();
+    if (index.isFile()) {
+      try (InputStream inputStream = new FileInputStream(index)) {
+        properties.load(inputStream);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else {
+      File[] exports = index.getParentFile().listFiles(File::isDirectory);
+      if (exports != null) {
+        for (File export : exports) {
+          properties.setProperty(export.getName().split("-")[0], export.getName());
+        }
+      }
+      write(index, properties);
+    }
+    Map<String, String> exports = new TreeMap<>();
+    properties.stringPropertyNames()
+        .forEach(id -> exports.put(id, properties.getProperty(id)));
+    return exports;
+  }
+
+  /**
+   * Add or update the directory name of an export.
+   */
+  public static synchronized void put(String exportDirectory, int userId,
+      String exportDirectoryName) {
+    Map<String, String> exports = read(exportDirectory, userId);
+    exports.put(exportDirectoryName.split("-")[0], exportDirectoryName);
+    write(indexFile(exportDirectory, userId), exports);
+  }
+
+  /**
+   * Remove an export from the index.
+   */
+  public static synchronized void remove(String exportDirectory, int userId, String id) {
+    Map<String, String> exports = read(exportDirectory, userId);
+    if (exports.remove(id) != null) {
+      write(indexFile(exportDirectory, userId), exports);
+    }
+  }
+
+  private static void write(File index, Map<?, ?> exports) {
+    index.getParentFile().mkdirs();
+    Properties properties = new Properties();
+    properties.putAll(exports);
+    File temporary = new File(index.getParent(), INDEX_FILENAME + ".tmp");
+    try (OutputStream outputStream = new FileOutputStream(temporary)) {
+      properties.store(outputStream, null);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    try {
+      Files.move(temporary.toPath(), index.toPath(), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static File indexFile(String exportDirectory, int userId) {
+    return new File(exportDirectory + File.separator + userId + File.separator + INDEX_FILENAME);
+  }
+}
@@ -1,18 +1,40 @@
 package de.dataelementhub.model.handler.export;
 
+import static de.dataelementhub.dal.jooq.Tables.IDENTIFIED_ELEMENT;
+
+import de.dataelementhub.dal.jooq.enums.ElementType;
 import de.dataelementhub.dal.jooq.enums.Status;
-import de.dataelementhub.model.dto.element.DataElement;
-import de.dataelementhub.model.dto.element.Element;
+import de.dataelementhub.dal.jooq.tables.pojos.Element;
+import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
+import de.dataelementhub.dal.jooq.tables.records.IdentifiedElementRecord;
+import de.dataelementhub.model.DaoUtil;
 import de.dataelementhub.model.dto.element.StagedElement;
+import de.dataelementhub.model.dto.element.section.ConceptAssociation;
+import de.dataelementhub.model.dto.element.section.Definition;
+import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.Member;
+import de.dataelementhub.model.dto.element.section.Slot;
 import de.dataelementhub.model.dto.element.section.ValueDomain;
-import de.dataelementhub.model.dto.element.section.validation.PermittedValue;
-import de.dataelementhub.model.handler.element.ElementHandler;
 import de.dataelementhub.model.handler.element.NamespaceHandler;
+import de.dataelementhub.model.handler.element.section.ConceptAssociationHandler;
+import de.dataelementhub.model.handler.element.section.DefinitionHandler;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
+import de.dataelementhub.model.handler.element.section.MemberHandler;
+import de.dataelementhub.model.handler.element.section.SlotHandler;
+import de.dataelementhub.model.handler.element.section.ValueDomainHandler;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.jooq.DSLContext;
 
@@ -21,13 +43,43 @@ import org.jooq.DSLContext;
  */
 public class StagedElementHandler {
 
+  private static int resolverWorkers = 4;
+  private static ExecutorService resolverExecutor;
+
+  /**
+   * Set the number of workers that read the elements of all exports together. Every worker uses
+   * a connection of its own while it reads a batch.
+   */
+  public static synchronized void setResolverWorkers(int resolverWorkers) {
+    StagedElementHandler.resolverWorkers = Math.max(1, resolverWorkers);
+    if (resolverExecutor != null) {
+      // Batches already submitted are still read by the previous workers
+      resolverExecutor.shutdown();
+      resolverExecutor = null;
+    }
+  }
+
+  private static synchronized ExecutorService getResolverExecutor() {
+    if (resolverExecutor == null) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      resolverExecutor = Executors.newFixedThreadPool(resolverWorkers, runnable -> {
+        Thread thread = new Thread(runnable, "dehub-export-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return resolverExecutor;
+  }
 
   /**
-   * Converts dehub elements to StagedElements.
+   * Converts dehub elements to StagedElements. The closure of the requested elements (value
+   * domains of data elements, members of groups and records) is collected level by level in a
+   * hash set, so every distinct element is read exactly once. The elements of a level are read in
+   * batches with a few bulk queries per batch, on the resolver workers shared by all exports. Sub
+   * elements are returned before the elements referring to them.
    **/
   public static List<StagedElement> elementsToStagedElements(
       DSLContext ctx, List<String> elementUrns, int userId, Boolean fullExport) {
-    List<StagedElement> stagedElements = new ArrayList<>();
     List<Member> exportMembers = new ArrayList<>();
     for (String elementUrn : elementUrns) {
       if (elementUrn.toLowerCase().contains("namespace")) {
@@ -44,60 +96,175 @@ public class StagedElementHandler {
       }
     }
     if (!fullExport) {
+      ExportHandler.nonExportable.addAll(exportMembers.stream()
+          .filter(member -> !member.getStatus().equals(Status.RELEASED))
+          .map(Member::getElementUrn).collect(Collectors.toList()));
       exportMembers = exportMembers.stream()
           .filter(member -> member.getStatus().equals(Status.RELEASED))
           .collect(Collectors.toList());
-      de.dataelementhub.model.handler.export.ExportHandler.nonExportable
-          .addAll(exportMembers.stream()
-              .filter(member -> !member.getStatus().equals(Status.RELEASED))
-              .map(Member::getElementUrn).collect(Collectors.toList()));
     }
-    float index = 1;
-    for (Member member : exportMembers) {
-      Element element = ElementHandler.readSubElement(ctx, userId, member.getElementUrn());
+    Set<String> seen = new LinkedHashSet<>();
+    exportMembers.forEach(member -> seen.add(member.getElementUrn()));
+    List<String> rootUrns = new ArrayList<>(seen);
+    Map<String, ResolvedElement> resolved = new HashMap<>();
+    ExecutorService workers = getResolverExecutor();
+    List<Future<List<ResolvedElement>>> batches = new ArrayList<>();
+    try {
+      List<String> level = rootUrns;
+      while (!level.isEmpty()) {
+        batches.clear();
+        for (int i = 0; i < level.size(); i += DaoUtil.BATCH_SIZE) {
+          List<String> batch = level.subList(i, Math.min(i + DaoUtil.BATCH_SIZE, level.size()));
+          batches.add(workers.submit(() -> resolveElements(ctx, userId, batch)));
+        }
+        List<String> nextLevel = new ArrayList<>();
+        for (Future<List<ResolvedElement>> batch : batches) {
+          for (ResolvedElement resolvedElement : batch.get()) {
+            String urn = resolvedElement.stagedElement.getIdentification().getUrn();
+            if (!fullExport && !resolvedElement.stagedElement.getIdentification().getStatus()
+                .equals(Status.RELEASED)) {
+              continue;
+            }
+            resolved.put(urn, resolvedElement);
+            resolvedElement.subElementUrns.stream().filter(seen::add).forEach(nextLevel::add);
+          }
+        }
+        ExportHandler.exportProgress = (float) resolved.size() / seen.size();
+        level = nextLevel;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Export interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      batches.forEach(batch -> batch.cancel(true));
+    }
+    List<StagedElement> stagedElements = new ArrayList<>();
+    Set<String> added = new HashSet<>();
+    rootUrns.forEach(urn -> addSubElementsFirst(urn, resolved, added, stagedElements));
+    return stagedElements;
+  }
+
+  /**
+   * Read a batch of distinct elements and the urns of the sub elements they refer to. The
+   * identifications, element records, definitions, slots, concept associations, members and value
+   * domain urns of the whole batch are read with one query each. Only the permitted values of
+   * enumerated value domains are read per value domain.
+   */
+  private static List<ResolvedElement> resolveElements(
+      DSLContext ctx, int userId, List<String> urns) {
+    Map<String, ScopedIdentifier> scopedIdentifiers =
+        IdentificationHandler.getScopedIdentifiers(ctx, urns);
+    Map<String, Identification> identifications =
+        IdentificationHandler.convert(ctx, scopedIdentifiers);
+    List<Integer> ids = scopedIdentifiers.values().stream().map(ScopedIdentifier::getId)
+        .collect(Collectors.toList());
+    Map<Integer, IdentifiedElementRecord> records = ctx.selectFrom(IDENTIFIED_ELEMENT)
+        .where(IDENTIFIED_ELEMENT.SI_ID.in(ids))
+        .fetchMap(IDENTIFIED_ELEMENT.SI_ID);
+    Map<Integer, List<Definition>> definitions = DefinitionHandler.get(ctx, ids);
+    Map<Integer, List<Slot>> slots = SlotHandler.get(ctx, ids);
+    Map<Integer, List<ConceptAssociation>> conceptAssociations =
+        ConceptAssociationHandler.get(ctx, ids);
+    Map<Integer, List<Member>> members = MemberHandler.get(ctx,
+        scopedIdentifiers.values().stream()
+            .filter(scopedIdentifier -> scopedIdentifier.getElementType()
+                == ElementType.DATAELEMENTGROUP
+                || scopedIdentifier.getElementType() == ElementType.RECORD)
+            .map(ScopedIdentifier::getId).collect(Collectors.toList()));
+    Map<String, String> valueDomainUrns = ValueDomainHandler.getValueDomainUrnsByElementUrns(ctx,
+        urns.stream().filter(urn -> scopedIdentifiers.containsKey(urn)
+                && scopedIdentifiers.get(urn).getElementType() == ElementType.DATAELEMENT)
+            .collect(Collectors.toList()));
+
+    List<ResolvedElement> resolvedElements = new ArrayList<>();
+    for (String urn : urns) {
+      ScopedIdentifier scopedIdentifier = scopedIdentifiers.get(urn);
+      IdentifiedElementRecord record =
+          scopedIdentifier != null ? records.get(scopedIdentifier.getId()) : null;
+      if (record == null) {
+        throw new NoSuchElementException(urn);
+      }
+      int id = scopedIdentifier.getId();
+      Identification identification = identifications.get(urn);
+      identification.setStatus(record.getSiStatus());
       StagedElement stagedElement = new StagedElement();
-      stagedElement.setIdentification(element.getIdentification());
-      stagedElement.setDefinitions(element.getDefinitions());
-      stagedElement.setSlots(element.getSlots());
-      switch (element.getIdentification().getElementType()) {
+      stagedElement.setIdentification(identification);
+      stagedElement.setDefinitions(definitions.getOrDefault(id, new ArrayList<>()));
+      stagedElement.setSlots(slots.getOrDefault(id, new ArrayList<>()));
+      List<String> subElementUrns = new ArrayList<>();
+      switch (identification.getElementType()) {
         case DATAELEMENT:
-          stagedElement.setConceptAssociations(((DataElement) element).getConceptAssociations());
-          stagedElement.setValueDomainUrn(((DataElement) element).getValueDomainUrn());
-          stagedElements.addAll(elementsToStagedElements(
-              ctx, Collections.singletonList(stagedElement.getValueDomainUrn()),
-              userId, fullExport));
+          stagedElement.setConceptAssociations(
+              conceptAssociations.getOrDefault(id, new ArrayList<>()));
+          stagedElement.setValueDomainUrn(valueDomainUrns.get(urn));
+          if (stagedElement.getValueDomainUrn() != null) {
+            subElementUrns.add(stagedElement.getValueDomainUrn());
+          }
           break;
         case DATAELEMENTGROUP:
         case RECORD:
-          List<Member> members = ElementHandler.readMembers(ctx, userId, element
-              .getIdentification().getUrn());
-          List<String> membersUrns = members.stream().map(Member::getElementUrn)
-              .collect(Collectors.toList());
-          stagedElements.addAll(elementsToStagedElements(ctx, membersUrns, userId, fullExport));
-          stagedElement.setMembers(members);
+          List<Member> elementMembers = members.getOrDefault(id, new ArrayList<>());
+          elementMembers.forEach(member -> subElementUrns.add(member.getElementUrn()));
+          stagedElement.setMembers(elementMembers);
           break;
         case ENUMERATED_VALUE_DOMAIN:
         case DESCRIBED_VALUE_DOMAIN:
-          stagedElement.setType(((ValueDomain) element).getType());
-          stagedElement.setText(((ValueDomain) element).getText());
-          stagedElement.setNumeric(((ValueDomain) element).getNumeric());
-          stagedElement.setDatetime(((ValueDomain) element).getDatetime());
-          stagedElement.setPermittedValues(((ValueDomain) element).getPermittedValues());
-          stagedElement.setConceptAssociations(((ValueDomain) element).getConceptAssociations());
+          Element valueDomainElement = record.into(Element.class);
+          ValueDomain valueDomain = new ValueDomain();
+          valueDomain.setType(valueDomainElement.getDatatype());
+          ValueDomainHandler.setValidation(ctx, userId, valueDomain, valueDomainElement,
+              identification);
+          stagedElement.setType(valueDomain.getType());
+          stagedElement.setText(valueDomain.getText());
+          stagedElement.setNumeric(valueDomain.getNumeric());
+          stagedElement.setDatetime(valueDomain.getDatetime());
+          stagedElement.setPermittedValues(valueDomain.getPermittedValues());
+          stagedElement.setConceptAssociations(
+              conceptAssociations.getOrDefault(id, new ArrayList<>()));
           break;
         case PERMISSIBLE_VALUE:
-          stagedElement.setValue(((PermittedValue) element).getValue());
-          stagedElement.setUrn(((PermittedValue) element).getUrn());
-          stagedElement.setConceptAssociations(((PermittedValue) element)
-              .getConceptAssociations());
+          stagedElement.setValue(record.getPermittedValue());
+          stagedElement.setConceptAssociations(
+              conceptAssociations.getOrDefault(id, new ArrayList<>()));
           break;
         default:
           throw new IllegalArgumentException("Element Type is not supported");
       }
-      stagedElements.add(stagedElement);
-      ExportHandler.exportProgress = index / exportMembers.size();
-      index = index + 1;
+      resolvedElements.add(new ResolvedElement(stagedElement, subElementUrns));
+    }
+    return resolvedElements;
+  }
+
+  /**
+   * Add a resolved element after its sub elements, so elements can be imported in list order.
+   */
+  private static void addSubElementsFirst(String urn, Map<String, ResolvedElement> resolved,
+      Set<String> added, List<StagedElement> stagedElements) {
+    ResolvedElement resolvedElement = resolved.get(urn);
+    if (resolvedElement == null || !added.add(urn)) {
+      return;
+    }
+    resolvedElement.subElementUrns
+        .forEach(subElementUrn -> addSubElementsFirst(subElementUrn, resolved, added,
+            stagedElements));
+    stagedElements.add(resolvedElement.stagedElement);
+  }
+
+  /**
+   * A staged element with the urns of the sub elements it refers to.
+   */
+  private static class ResolvedElement {
+    private final StagedElement stagedElement;
+    private final List<String> subElementUrns;
+
+    private ResolvedElement(StagedElement stagedElement, List<String> subElementUrns) {
+      this.stagedElement = stagedElement;
+      this.subElementUrns = subElementUrns;
     }
-    return stagedElements.stream().distinct().collect(Collectors.toList());
   }
 }
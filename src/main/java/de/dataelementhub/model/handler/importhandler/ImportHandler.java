@@ -11,39 +11,63 @@ import de.dataelementhub.dal.jooq.enums.ElementType;
 import de.dataelementhub.dal.jooq.enums.ProcessStatus;
 import de.dataelementhub.dal.jooq.tables.pojos.ScopedIdentifier;
 import de.dataelementhub.dal.jooq.tables.records.ImportRecord;
+import de.dataelementhub.dal.jooq.tables.records.StagingRecord;
+import de.dataelementhub.model.DaoUtil;
 import de.dataelementhub.model.dto.element.StagedElement;
 import de.dataelementhub.model.dto.element.section.Member;
 import de.dataelementhub.model.dto.importexport.ImportExport;
 import de.dataelementhub.model.dto.importexport.ImportInfo;
 import de.dataelementhub.model.handler.element.NamespaceHandler;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import net.lingala.zip4j.ZipFile;
 import net.lingala.zip4j.exception.ZipException;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
 import org.eclipse.persistence.jaxb.JAXBContextProperties;
 import org.everit.json.schema.ValidationException;
 import org.everit.json.schema.loader.SchemaLoader;
 import org.jooq.DSLContext;
-import org.jooq.Record2;
-import org.jooq.impl.SQLDataType;
+import org.jooq.InsertValuesStep6;
+import org.jooq.Record3;
+import org.jooq.UpdateSetMoreStep;
+import org.jooq.impl.DSL;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.springframework.http.MediaType;
@@ -55,6 +79,17 @@ import org.xml.sax.SAXException;
 @Slf4j
 public class ImportHandler {
 
+  private static final String STAGING_IMPORT_XSD = "schema/StagingImport.xsd";
+  private static final String STAGING_IMPORT_JSON = "schema/StagingImport.json";
+  private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+  private static Schema xmlSchema;
+  private static org.everit.json.schema.Schema jsonSchema;
+  private static JAXBContext jaxbContext;
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static int stagingWorkers = 4;
+  private static ExecutorService stagingExecutor;
+  private static ExecutorService jsonWriterExecutor;
+
   /** Create import directory and return it. */
   public static String createImportDirectory(String importDirectory, int userId, int importId) {
     String destination = importDirectory + File.separator + userId + File.separator + importId;
@@ -75,93 +110,291 @@ public class ImportHandler {
     return inputFolder.listFiles();
   }
 
-  /** Validate all files in a folder against schema and throw an exception
-   * in case the files are not valid.*/
-  public static void validateAllFilesInFolder(File[] allFilesInFolder) throws IOException {
-    for (File file : Objects.requireNonNull(allFilesInFolder)) {
-      if (file.isFile() && file.getName().contains(".json") || file.getName().contains(".xml")) {
-        validateAgainstSchema(file.getAbsolutePath());
-      }
-    }
-  }
-
-  /** Detect file type (xml/json) then handle importing it.*/
+  /**
+   * Detect file type (xml/json) then handle importing it. Files are parsed and staged in parallel
+   * by the staging workers shared by all imports, every file in a transaction of its own. A file
+   * that can not be staged does not stop the other files, its error is reported in the import
+   * label. The import is only aborted if no file could be staged.
+   */
   public static void startImportAccordingToFileType(
       DSLContext ctx, int importId, File[] allFilesInFolder) throws Exception {
-    for (File file : Objects.requireNonNull(allFilesInFolder)) {
-      if (file.isFile() && !file.getName().contains(".zip")) {
-        String fileAbsolutePath = file.getAbsolutePath();
-        if (fileAbsolutePath.contains(".xml")) {
-          importXml(ctx, fileAbsolutePath, importId);
-        } else if (fileAbsolutePath.contains(".json")) {
-          importJson(ctx, fileAbsolutePath, importId);
+    List<File> files = Arrays.stream(Objects.requireNonNull(allFilesInFolder))
+        .filter(file -> file.isFile() && !file.getName().contains(".zip")
+            && (file.getName().contains(".xml") || file.getName().contains(".json")))
+        .collect(Collectors.toList());
+    Map<String, String> failures = new LinkedHashMap<>();
+    ExecutorService workers = getStagingExecutor();
+    List<Future<?>> stagedFiles = new ArrayList<>();
+    try {
+      for (File file : files) {
+        stagedFiles.add(workers.submit(() -> {
+          checkCancelled();
+          stageElements(ctx, readFile(file), importId);
+          return null;
+        }));
+      }
+      for (int i = 0; i < files.size(); i++) {
+        try {
+          stagedFiles.get(i).get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof CancellationException) {
+            throw (CancellationException) e.getCause();
+          }
+          log.warn("Staging " + files.get(i).getName() + " of import " + importId + " failed",
+              e.getCause());
+          failures.put(files.get(i).getName(), e.getCause().getMessage());
         }
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Import cancelled");
+    } finally {
+      stagedFiles.forEach(stagedFile -> stagedFile.cancel(true));
+    }
+    String label = failures.entrySet().stream()
+        .map(failure -> failure.getKey() + ": " + failure.getValue())
+        .collect(Collectors.joining("\n"));
+    if (!files.isEmpty() && failures.size() == files.size()) {
+      throw new IOException(label);
+    }
+    UpdateSetMoreStep<ImportRecord> update = ctx.update(IMPORT)
+        .set(IMPORT.STATUS, ProcessStatus.COMPLETED);
+    if (!failures.isEmpty()) {
+      update = update.set(IMPORT.LABEL, label);
+    }
+    update.where(IMPORT.ID.eq(importId)).execute();
+  }
+
+  /**
+   * Set the number of files that are staged in parallel. The workers are shared by all imports
+   * and each one uses a connection while it stages a file, so the number has to stay below the
+   * size of the connection pool.
+   */
+  public static synchronized void setStagingWorkers(int stagingWorkers) {
+    ImportHandler.stagingWorkers = Math.max(1, stagingWorkers);
+    if (stagingExecutor != null) {
+      // Files already submitted are still staged by the previous workers
+      stagingExecutor.shutdown();
+      stagingExecutor = null;
     }
   }
 
-  /** handles importing xml file. */
+  private static synchronized ExecutorService getStagingExecutor() {
+    if (stagingExecutor == null) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      stagingExecutor = Executors.newFixedThreadPool(stagingWorkers, runnable -> {
+        Thread thread = new Thread(runnable, "dehub-staging-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return stagingExecutor;
+  }
+
+  /** Read the staged elements of an xml or json file. */
+  private static List<StagedElement> readFile(File file) throws Exception {
+    if (file.getName().contains(".xml")) {
+      return readXml(new StreamSource(file));
+    }
+    try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+      return readJson(inputStream);
+    }
+  }
+
+  /** handles importing xml file. The file is validated against the XSD while it is parsed. */
   public static void importXml(
       DSLContext ctx, String fileToImport, int importId)
       throws Exception {
-    File file = new File(fileToImport);
-    JAXBContext jaxbContext = JAXBContext.newInstance(ImportExport.class);
-    Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-    ImportExport importExport = (ImportExport) jaxbUnmarshaller.unmarshal(file);
-    saveElements(ctx, importExport.getStagedElements(), importId);
+    saveElements(ctx, readXml(new StreamSource(new File(fileToImport))), importId);
   }
 
   /** handles importing json file. */
   public static void importJson(
       DSLContext ctx, String fileToImport, int importId)
       throws Exception {
-    System.setProperty(
-        "javax.xml.bind.context.factory", "org.eclipse.persistence.jaxb.JAXBContextFactory");
-    JAXBContext jaxbContext = JAXBContext.newInstance(ImportExport.class);
-    Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+    try (InputStream inputStream = Files.newInputStream(Paths.get(fileToImport))) {
+      saveElements(ctx, readJson(inputStream), importId);
+    }
+  }
+
+  /**
+   * Validate and stage all xml/json entries of the given zip files, then mark the import as
+   * completed.
+   */
+  public static void importZipFiles(DSLContext ctx, List<Path> zipFiles, int importId)
+      throws Exception {
+    for (Path zipFile : zipFiles) {
+      try (InputStream inputStream = Files.newInputStream(zipFile)) {
+        importZipStream(ctx, inputStream, importId);
+      }
+    }
+    ctx.update(IMPORT)
+        .set(IMPORT.STATUS, ProcessStatus.COMPLETED)
+        .where(IMPORT.ID.eq(importId))
+        .execute();
+  }
+
+  /**
+   * Validate and stage all xml/json entries of a zip stream without extracting it to disk. Xml
+   * entries are validated while they are unmarshalled straight from the stream, json entries are
+   * parsed straight from the stream into the tree they are validated on. The elements of every entry are staged in a transaction of their own
+   * before the next entry is read, so only one entry is held in memory.
+   */
+  public static void importZipStream(DSLContext ctx, InputStream zipStream, int importId)
+      throws Exception {
+    try (ZipInputStream zipInputStream = new ZipInputStream(zipStream)) {
+      // The unmarshaller closes its input, which must not close the whole zip stream
+      InputStream currentEntry = new FilterInputStream(zipInputStream) {
+        @Override
+        public void close() {
+        }
+      };
+      ZipEntry entry;
+      while ((entry = zipInputStream.getNextEntry()) != null) {
+        checkCancelled();
+        String entryName = entry.getName();
+        if (entry.isDirectory() || entryName.contains(".zip")) {
+          continue;
+        }
+        List<StagedElement> stagedElements;
+        if (entryName.contains(".xml")) {
+          stagedElements = readXml(new StreamSource(currentEntry));
+        } else if (entryName.contains(".json")) {
+          stagedElements = readJson(currentEntry);
+        } else {
+          continue;
+        }
+        stageElements(ctx, stagedElements, importId);
+      }
+    }
+  }
+
+  /**
+   * Unmarshal the staged elements of an xml source. The unmarshaller validates against the
+   * compiled XSD in the same pass.
+   */
+  private static List<StagedElement> readXml(StreamSource xml) throws Exception {
+    Unmarshaller jaxbUnmarshaller = getJaxbContext().createUnmarshaller();
+    jaxbUnmarshaller.setSchema(getXmlSchema());
+    try {
+      ImportExport importExport = (ImportExport) jaxbUnmarshaller.unmarshal(xml);
+      return importExport.getStagedElements();
+    } catch (UnmarshalException e) {
+      throw new IOException("The import file you submitted did not pass validation.\n"
+          + (e.getLinkedException() != null ? e.getLinkedException().getMessage()
+          : e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Unmarshal the staged elements of a json stream. The stream is parsed into a tree that is
+   * checked against the compiled JSON schema, files with violations are rejected. The elements
+   * are unmarshalled from the validated tree, which is written to the unmarshaller through a pipe
+   * instead of being copied into a string first.
+   */
+  private static List<StagedElement> readJson(InputStream json) throws Exception {
+    JSONObject jsonObject = new JSONObject(new JSONTokener(json));
+    validateJson(jsonObject);
+    Unmarshaller jaxbUnmarshaller = getJaxbContext().createUnmarshaller();
     jaxbUnmarshaller.setProperty(JAXBContextProperties.MEDIA_TYPE,
         MediaType.APPLICATION_JSON_VALUE);
     jaxbUnmarshaller.setProperty(JAXBContextProperties.JSON_INCLUDE_ROOT, true);
-    StreamSource json = new StreamSource(new StringReader(readFileAsString(fileToImport)));
-    ImportExport importExport = jaxbUnmarshaller.unmarshal(json, ImportExport.class).getValue();
-    saveElements(ctx, importExport.getStagedElements(), importId);
+    PipedReader reader = new PipedReader(PIPE_BUFFER_SIZE);
+    PipedWriter writer = new PipedWriter(reader);
+    Future<?> writing = getJsonWriterExecutor().submit(() -> {
+      try (Writer treeWriter = writer) {
+        jsonObject.write(treeWriter);
+      }
+      return null;
+    });
+    try (Reader treeReader = reader) {
+      return jaxbUnmarshaller.unmarshal(new StreamSource(treeReader), ImportExport.class)
+          .getValue().getStagedElements();
+    } finally {
+      // Closing the reader stops a writer the unmarshaller did not read to the end
+      writing.cancel(true);
+    }
+  }
+
+  private static synchronized ExecutorService getJsonWriterExecutor() {
+    if (jsonWriterExecutor == null) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      jsonWriterExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable,
+            "dehub-json-writer-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return jsonWriterExecutor;
   }
 
   /** Convert stagedElements to elements and save them. */
   public static void saveElements(
-      DSLContext ctx, List<StagedElement> stagedElements, int importId) {
+      DSLContext ctx, List<StagedElement> stagedElements, int importId)
+      throws JsonProcessingException {
+    stageElements(ctx, stagedElements, importId);
     ctx.update(IMPORT)
-        .set(IMPORT.NUMBER_OF_ELEMENTS, stagedElements.size())
+        .set(IMPORT.STATUS, ProcessStatus.COMPLETED)
         .where(IMPORT.ID.eq(importId))
         .execute();
-    stagedElements
-        .forEach(
-            (stagedElement -> {
-              String membersAsString = stagedElement.getMembers() != null ? stagedElement
-                  .getMembers().stream().map(Member::getElementUrn)
-                  .collect(Collectors.joining(";")) : "";
-              try {
-                ctx.insertInto(STAGING)
-                    .set(STAGING.DATA, new ObjectMapper().writeValueAsString(stagedElement))
-                    .set(STAGING.ELEMENT_TYPE, stagedElement.getIdentification().getElementType())
-                    .set(STAGING.DESIGNATION, stagedElement.getDefinitions()
-                        .size() > 0 ? stagedElement.getDefinitions().get(0).getDesignation() : "")
-                    .set(STAGING.IMPORT_ID, importId)
-                    .set(STAGING.STAGED_ELEMENT_ID, stagedElement.getIdentification().getUrn())
-                    .set(STAGING.MEMBERS, membersAsString)
-                    .execute();
-                ctx.update(IMPORT)
-                    .set(IMPORT.STATUS, ProcessStatus.COMPLETED)
-                    .where(IMPORT.ID.eq(importId))
-                    .execute();
-              } catch (JsonProcessingException e) {
-                ctx.update(IMPORT)
-                    .set(IMPORT.STATUS, ProcessStatus.ABORTED)
-                    .set(IMPORT.LABEL, e.getMessage())
-                    .where(IMPORT.ID.eq(importId))
-                    .execute();
-              }
-            }));
+  }
+
+  /**
+   * Insert staged elements into the staging table with multi-row inserts in one transaction. The
+   * number of elements of the import is increased on the database as the last statement of the
+   * transaction, so it only counts committed rows and concurrent workers staging files of the
+   * same import add up without holding the import row locked while they insert.
+   */
+  private static void stageElements(
+      DSLContext ctx, List<StagedElement> stagedElements, int importId) {
+    ctx.transaction(configuration -> {
+      DSLContext tx = DSL.using(configuration);
+      insertStagedElements(tx, stagedElements, importId);
+      tx.update(IMPORT)
+          .set(IMPORT.NUMBER_OF_ELEMENTS,
+              DSL.coalesce(IMPORT.NUMBER_OF_ELEMENTS, 0).plus(stagedElements.size()))
+          .where(IMPORT.ID.eq(importId))
+          .execute();
+    });
+  }
+
+  private static void insertStagedElements(
+      DSLContext ctx, List<StagedElement> stagedElements, int importId)
+      throws JsonProcessingException {
+    InsertValuesStep6<StagingRecord, String, ElementType, String, Integer, String, String> insert =
+        null;
+    int rows = 0;
+    for (StagedElement stagedElement : stagedElements) {
+      checkCancelled();
+      String membersAsString = stagedElement.getMembers() != null ? stagedElement
+          .getMembers().stream().map(Member::getElementUrn)
+          .collect(Collectors.joining(";")) : "";
+      if (insert == null) {
+        insert = ctx.insertInto(STAGING, STAGING.DATA, STAGING.ELEMENT_TYPE, STAGING.DESIGNATION,
+            STAGING.IMPORT_ID, STAGING.STAGED_ELEMENT_ID, STAGING.MEMBERS);
+      }
+      insert = insert.values(OBJECT_MAPPER.writeValueAsString(stagedElement),
+          stagedElement.getIdentification().getElementType(),
+          stagedElement.getDefinitions().size() > 0
+              ? stagedElement.getDefinitions().get(0).getDesignation() : "",
+          importId, stagedElement.getIdentification().getUrn(), membersAsString);
+      if (++rows == DaoUtil.BATCH_SIZE) {
+        insert.execute();
+        insert = null;
+        rows = 0;
+      }
+    }
+    if (insert != null) {
+      insert.execute();
+    }
+  }
+
+  /** Stop the current import if its job got cancelled (the worker thread is interrupted). */
+  public static void checkCancelled() {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new CancellationException("Import cancelled");
+    }
   }
 
   /** returns JSON file as String. */
@@ -171,37 +404,76 @@ public class ImportHandler {
 
   /** File validation against XSD/JSON Schema. */
   public static void validateAgainstSchema(String fileToValidate) throws IOException {
-    try {
-      if (fileToValidate.contains(".xsd")) {
-        File schemaFile =
-            new File(
-                System.getProperty("user.dir")
-                    + "/src/main/resources/schema/StagingImport.xsd"
-                    .replace('/', File.separatorChar));
-        Source xmlFile = new StreamSource(new File(fileToValidate));
-        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        Schema schema = schemaFactory.newSchema(schemaFile);
-        Validator validator = schema.newValidator();
-        validator.validate(xmlFile);
-      } else if (fileToValidate.contains(".json")) {
-        JSONObject jsonSchema =
-            new JSONObject(
-                new JSONTokener(
-                    new FileInputStream(
-                        System.getProperty("user.dir")
-                            + "/src/main/resources/schema/StagingImport.json"
-                            .replace('/', File.separatorChar))));
-        JSONObject jsonSubject =
-            new JSONObject(new JSONTokener(new FileInputStream(fileToValidate)));
-        org.everit.json.schema.Schema schema = SchemaLoader.load(jsonSchema);
-        schema.validate(jsonSubject);
+    validateAgainstSchema(fileToValidate, Files.readAllBytes(Paths.get(fileToValidate)));
+  }
+
+  /** Validation of an in-memory import file against XSD/JSON Schema. */
+  public static void validateAgainstSchema(String fileName, byte[] content) throws IOException {
+    if (fileName.contains(".xml")) {
+      try {
+        getXmlSchema().newValidator()
+            .validate(new StreamSource(new ByteArrayInputStream(content)));
+      } catch (SAXException e) {
+        throw new IOException("The import file you submitted did not pass validation.\n"
+            + e.getMessage());
       }
-    } catch (SAXException e) {
-      throw new IOException("The import file you submitted did not pass validation.\n"
-          + e.getMessage());
+    } else if (fileName.contains(".json")) {
+      validateJson(new JSONObject(new JSONTokener(new ByteArrayInputStream(content))));
+    }
+  }
+
+  /** Check a json import against the JSON schema and reject it if there are violations. */
+  private static void validateJson(JSONObject jsonSubject) throws IOException {
+    try {
+      getJsonSchema().validate(jsonSubject);
     } catch (ValidationException e) {
-      e.getAllMessages().forEach(msg -> log.warn(msg));
+      throw new IOException("The import file you submitted did not pass validation.\n"
+          + String.join("\n", e.getAllMessages()), e);
+    }
+  }
+
+  /** Returns the compiled XSD for xml imports. */
+  private static synchronized Schema getXmlSchema() throws IOException {
+    if (xmlSchema == null) {
+      try (InputStream is = openSchema(STAGING_IMPORT_XSD)) {
+        xmlSchema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            .newSchema(new StreamSource(is));
+      } catch (SAXException e) {
+        throw new IOException("Import schema could not be loaded: " + e.getMessage(), e);
+      }
+    }
+    return xmlSchema;
+  }
+
+  /** Returns the compiled JSON schema for json imports. */
+  private static synchronized org.everit.json.schema.Schema getJsonSchema() throws IOException {
+    if (jsonSchema == null) {
+      try (InputStream is = openSchema(STAGING_IMPORT_JSON)) {
+        jsonSchema = SchemaLoader.load(new JSONObject(new JSONTokener(is)));
+      }
     }
+    return jsonSchema;
+  }
+
+  /** Returns the JAXB context for imports. JAXB contexts are thread-safe and can be shared. */
+  private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+    if (jaxbContext == null) {
+      jaxbContext = JAXBContextFactory.createContext(new Class[] {ImportExport.class}, null);
+    }
+    return jaxbContext;
+  }
+
+  /**
+   * Open a schema from the classpath. Falls back to the source tree of the working directory,
+   * where the schemas were looked up before.
+   */
+  private static InputStream openSchema(String name) throws IOException {
+    InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+    if (is != null) {
+      return is;
+    }
+    return new FileInputStream(System.getProperty("user.dir")
+        + ("/src/main/resources/" + name).replace('/', File.separatorChar));
   }
 
   /** Convert StagedElements to drafts. */
@@ -216,6 +488,7 @@ public class ImportHandler {
         .fetchOneInto(ScopedIdentifier.class);
     String namespaceUrn = IdentificationHandler.toUrn(ctx, scopedIdentifier);
     stagedElementsIds.forEach(stagedElementId -> {
+      checkCancelled();
       StagedElement stagedElement;
       stagedElement = StagedElementHandler.getStagedElement(ctx, importId,
           userId, stagedElementId);
@@ -231,31 +504,44 @@ public class ImportHandler {
   /** Convert an importRecord to importInfo. */
   public static ImportInfo importRecordToImportInfo(
       DSLContext ctx, ImportRecord importRecord) {
-    ImportInfo importInfo = new ImportInfo();
-    double conversionProcess;
-    double stagingProcess;
-    try {
-      Record2<Double, Double> countNotNullEntriesAndAllEntries =
-          ctx.select(count(STAGING.SCOPED_IDENTIFIER_ID).cast(
-                  SQLDataType.DOUBLE).as("notNull"),
-              count().cast(
-                  SQLDataType.DOUBLE).as("all")).from(STAGING)
-          .where(STAGING.IMPORT_ID.eq(importRecord.getId())).fetchOne();
-      conversionProcess =
-          countNotNullEntriesAndAllEntries.value1() / countNotNullEntriesAndAllEntries.value2();
-      stagingProcess =
-          countNotNullEntriesAndAllEntries.value2() / importRecord.getNumberOfElements();
-    } catch (Exception e) {
-      stagingProcess = 0;
-      conversionProcess = 0;
+    return importRecordsToImportInfos(ctx, List.of(importRecord)).get(0);
+  }
+
+  /**
+   * Convert importRecords to importInfos. The staging progress of all imports is counted with
+   * one grouped query and the namespace urns are resolved with one more query.
+   */
+  public static List<ImportInfo> importRecordsToImportInfos(
+      DSLContext ctx, List<ImportRecord> importRecords) {
+    if (importRecords.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Map<Integer, Record3<Integer, Integer, Integer>> stagingCounts = ctx
+        .select(STAGING.IMPORT_ID, count(), count(STAGING.SCOPED_IDENTIFIER_ID))
+        .from(STAGING)
+        .where(STAGING.IMPORT_ID.in(
+            importRecords.stream().map(ImportRecord::getId).collect(Collectors.toList())))
+        .groupBy(STAGING.IMPORT_ID)
+        .fetchMap(STAGING.IMPORT_ID);
+    Map<Integer, String> namespaceUrns = NamespaceHandler.getNamespaceUrnsByIds(ctx,
+        importRecords.stream().map(ImportRecord::getNamespaceId).collect(Collectors.toSet()));
+
+    List<ImportInfo> importInfos = new ArrayList<>();
+    for (ImportRecord importRecord : importRecords) {
+      Record3<Integer, Integer, Integer> counts = stagingCounts.get(importRecord.getId());
+      double staged = counts != null ? counts.value2() : 0;
+      double converted = counts != null ? counts.value3() : 0;
+      ImportInfo importInfo = new ImportInfo();
+      importInfo.setId(importRecord.getId());
+      importInfo.setStatus(importRecord.getStatus());
+      importInfo.setNamespaceUrn(namespaceUrns.get(importRecord.getNamespaceId()));
+      importInfo.setConverted(staged > 0 ? converted / staged : 0);
+      importInfo.setStaged(importRecord.getNumberOfElements() != null
+          && importRecord.getNumberOfElements() > 0
+          ? staged / importRecord.getNumberOfElements() : 0);
+      importInfo.setTimestamp(Timestamp.valueOf(importRecord.getCreatedAt()));
+      importInfos.add(importInfo);
     }
-    importInfo.setId(importRecord.getId());
-    importInfo.setStatus(importRecord.getStatus());
-    importInfo.setNamespaceUrn(NamespaceHandler
-        .getNamespaceUrnById(ctx, importRecord.getNamespaceId()));
-    importInfo.setConverted(conversionProcess);
-    importInfo.setStaged(stagingProcess);
-    importInfo.setTimestamp(Timestamp.valueOf(importRecord.getCreatedAt()));
-    return importInfo;
+    return importInfos;
   }
 }
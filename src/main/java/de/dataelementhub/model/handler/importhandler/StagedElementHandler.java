@@ -27,10 +27,18 @@ import de.dataelementhub.model.handler.element.section.validation.PermittedValue
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
+import java.util.stream.Collectors;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record2;
 import org.jooq.Result;
+import org.jooq.impl.DSL;
 
 /**
  * StagedElement Handler.
@@ -40,19 +48,49 @@ public class StagedElementHandler {
   /** Get stagedElement Members by ID. */
   public static List<de.dataelementhub.model.dto.listviews.StagedElement> getStagedElementMembers(
       DSLContext ctx, int importId, int userId, String stagedElementId) {
-    List<String> stagedElementMembersIds = List.of(ctx.select(STAGING.MEMBERS)
-            .from(STAGING)
-            .where(STAGING.IMPORT_ID.eq(importId))
-            .and(STAGING.STAGED_ELEMENT_ID.eq(stagedElementId)).fetchOne().into(String.class)
-            .split(";"));
-    Result<org.jooq.Record> stagingRecords = ctx
-        .select()
-        .from(STAGING).where(STAGING.IMPORT_ID.eq(importId))
-        .and(String.valueOf(ctx.fetchExists(ctx.selectFrom(IMPORT)
-            .where(IMPORT.ID.eq(importId)).and(IMPORT.CREATED_BY.eq(userId)))))
-        .and(STAGING.STAGED_ELEMENT_ID.in(stagedElementMembersIds))
-        .fetch();
-    return stagingRecordsToStagedElements(ctx, stagingRecords);
+    return getStagedElements(ctx, importId, userId, STAGING.STAGED_ELEMENT_ID.in(
+        StagingMemberHandler.getMemberIds(importId, stagedElementId)));
+  }
+
+  /**
+   * Get the listview of the stagedElements of an import with one query. Sub elements (members of
+   * other stagedElements of the import) are excluded with an anti-join on the database.
+   */
+  public static List<de.dataelementhub.model.dto.listviews.StagedElement> getStagedElements(
+      DSLContext ctx, int importId, int userId, boolean hideSubElements, boolean onlyConverted) {
+    Condition condition = DSL.noCondition();
+    if (hideSubElements) {
+      condition = condition.and(StagingMemberHandler.isNoSubElement(importId));
+    }
+    if (onlyConverted) {
+      condition = condition.and(STAGING.SCOPED_IDENTIFIER_ID.isNotNull());
+    }
+    return getStagedElements(ctx, importId, userId, condition);
+  }
+
+  /**
+   * Select the listview of stagedElements matching the condition. The staging rows are joined to
+   * their scoped identifiers and the urns are built in the same query.
+   */
+  private static List<de.dataelementhub.model.dto.listviews.StagedElement> getStagedElements(
+      DSLContext ctx, int importId, int userId, Condition condition) {
+    de.dataelementhub.dal.jooq.tables.ScopedIdentifier si = SCOPED_IDENTIFIER.as("si");
+    return ctx.select(STAGING.STAGED_ELEMENT_ID, urn(si), STAGING.ELEMENT_TYPE,
+            STAGING.DESIGNATION)
+        .from(STAGING)
+        .leftJoin(si).on(si.ID.eq(STAGING.SCOPED_IDENTIFIER_ID))
+        .where(STAGING.IMPORT_ID.eq(importId))
+        .and(DSL.exists(DSL.selectOne().from(IMPORT)
+            .where(IMPORT.ID.eq(importId)).and(IMPORT.CREATED_BY.eq(userId))))
+        .and(condition)
+        .fetch(r -> new de.dataelementhub.model.dto.listviews.StagedElement(
+            r.value1(), r.value2(), r.value3(), r.value4()));
+  }
+
+  /** Returns the urn of the (possibly missing) joined scoped identifier row. */
+  private static Field<String> urn(de.dataelementhub.dal.jooq.tables.ScopedIdentifier si) {
+    return DSL.when(si.ID.isNotNull(),
+        DSL.field("urn({0})", String.class, DSL.name(si.getName())));
   }
 
   /** Get stagedElement by ID. */
@@ -228,16 +266,24 @@ public class StagedElementHandler {
   public static List<de.dataelementhub.model.dto.listviews.StagedElement>
       stagingRecordsToStagedElements(DSLContext ctx,
       Result<org.jooq.Record> stagingRecords) {
+    // Resolve the urns of all converted elements with one query
+    de.dataelementhub.dal.jooq.tables.ScopedIdentifier si = SCOPED_IDENTIFIER.as("si");
+    List<Integer> scopedIdentifierIds = stagingRecords.stream()
+        .map(sr -> sr.getValue(STAGING.SCOPED_IDENTIFIER_ID))
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    Map<Integer, String> urns = scopedIdentifierIds.isEmpty() ? new HashMap<>() : ctx
+        .select(si.ID, urn(si))
+        .from(si)
+        .where(si.ID.in(scopedIdentifierIds))
+        .fetchMap(Record2::value1, Record2::value2);
+
     List<de.dataelementhub.model.dto.listviews.StagedElement> stagedElements = new ArrayList<>();
     for (org.jooq.Record sr : stagingRecords) {
       de.dataelementhub.model.dto.listviews.StagedElement stagedElement =
           new de.dataelementhub.model.dto.listviews.StagedElement();
       stagedElement.setStagedElementId(sr.getValue(STAGING.STAGED_ELEMENT_ID));
-      stagedElement.setElementUrn(null);
-      if (sr.getValue(STAGING.SCOPED_IDENTIFIER_ID) != null) {
-        stagedElement.setElementUrn(IdentificationHandler
-            .toUrn(ctx, sr.getValue(STAGING.SCOPED_IDENTIFIER_ID)));
-      }
+      stagedElement.setElementUrn(urns.get(sr.getValue(STAGING.SCOPED_IDENTIFIER_ID)));
       stagedElement.setElementType(sr.getValue(STAGING.ELEMENT_TYPE));
       stagedElement.setDesignation(sr.getValue(STAGING.DESIGNATION));
       stagedElements.add(stagedElement);
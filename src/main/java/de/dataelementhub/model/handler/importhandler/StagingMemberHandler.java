@@ -0,0 +1,46 @@
+package de.dataelementhub.model.handler.importhandler;
+
+import static de.dataelementhub.dal.jooq.Tables.STAGING;
+
+import de.dataelementhub.dal.jooq.tables.Staging;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.SelectConditionStep;
+import org.jooq.impl.DSL;
+
+/**
+ * Staging Member Handler.
+ *
+ * <p>Resolves the members of staged elements on the database. The members are stored as a
+ * semicolon separated string in STAGING.MEMBERS, which is the only member storage the DAL
+ * provides, and are split with {@code string_to_array} in the queries instead of in Java.
+ */
+public class StagingMemberHandler {
+
+  /**
+   * Returns the ids of the direct members of a staged element.
+   */
+  public static SelectConditionStep<Record1<String>> getMemberIds(int importId,
+      String parentStagedElementId) {
+    Staging parent = STAGING.as("parent");
+    Field<String> memberId = DSL.field("unnest(string_to_array({0}, ';'))", String.class,
+        parent.MEMBERS);
+    return DSL.select(memberId).from(parent)
+        .where(parent.IMPORT_ID.eq(importId))
+        .and(parent.STAGED_ELEMENT_ID.eq(parentStagedElementId));
+  }
+
+  /**
+   * Returns a condition that is true for staging rows which are no member of another staged
+   * element of the import (anti-join on the members).
+   */
+  public static Condition isNoSubElement(int importId) {
+    Staging parent = STAGING.as("parent");
+    return DSL.notExists(DSL.selectOne()
+        .from(parent)
+        .where(parent.IMPORT_ID.eq(importId))
+        .and(DSL.condition("{0} = any(string_to_array({1}, ';'))",
+            STAGING.STAGED_ELEMENT_ID, parent.MEMBERS)));
+  }
+}
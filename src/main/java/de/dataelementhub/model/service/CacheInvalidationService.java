@@ -0,0 +1,70 @@
+package de.dataelementhub.model.service;
+
+import de.dataelementhub.model.handler.CacheInvalidationBus;
+import de.dataelementhub.model.handler.LoopbackInvalidationChannel;
+import de.dataelementhub.model.handler.PostgresInvalidationChannel;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache Invalidation Service.
+ *
+ * <p>Connects the cache invalidation bus to the channel set in
+ * {@code dehub.cache.invalidationChannel}: {@code postgres} (default) shares invalidations with
+ * all nodes using the same database, {@code loopback} keeps them in this process. Without a data
+ * source the loopback channel is used. The postgres channel is waited for until it listens, so
+ * services depending on this one do not miss invalidations.
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService implements InitializingBean, DisposableBean {
+
+  private static final long LISTEN_TIMEOUT_IN_SECONDS = 10;
+
+  @Value("${dehub.cache.invalidationChannel:postgres}")
+  private String invalidationChannel;
+
+  private final ObjectProvider<DataSource> dataSource;
+
+  @Autowired
+  public CacheInvalidationService(ObjectProvider<DataSource> dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public void afterPropertiesSet() throws InterruptedException {
+    switch (invalidationChannel) {
+      case "postgres":
+        DataSource available = dataSource.getIfAvailable();
+        if (available != null) {
+          PostgresInvalidationChannel channel = new PostgresInvalidationChannel(available);
+          CacheInvalidationBus.setChannel(channel);
+          if (!channel.awaitListening(LISTEN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Not yet listening for cache invalidations after "
+                + LISTEN_TIMEOUT_IN_SECONDS + " seconds");
+          }
+          return;
+        }
+        log.warn("No data source available, cache invalidations are not shared with other nodes");
+        break;
+      case "loopback":
+        break;
+      default:
+        throw new IllegalArgumentException(
+            "Unknown cache invalidation channel: " + invalidationChannel);
+    }
+    CacheInvalidationBus.setChannel(new LoopbackInvalidationChannel());
+  }
+
+  @Override
+  public void destroy() {
+    CacheInvalidationBus.setChannel(new LoopbackInvalidationChannel());
+  }
+}
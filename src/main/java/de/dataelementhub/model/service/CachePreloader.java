@@ -0,0 +1,110 @@
+package de.dataelementhub.model.service;
+
+import de.dataelementhub.dal.jooq.enums.ElementType;
+import de.dataelementhub.model.dto.element.Namespace;
+import de.dataelementhub.model.dto.element.section.Member;
+import de.dataelementhub.model.handler.element.ElementCache;
+import de.dataelementhub.model.handler.element.NamespaceHandler;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache Preloader.
+ *
+ * <p>Fills the element cache with the released and outdated elements of all public namespaces,
+ * so the first requests after a deploy do not load every element cold. The namespaces are
+ * preloaded in parallel until all elements are cached or the time or element budget is used up.
+ */
+@Slf4j
+@Service
+public class CachePreloader {
+
+  private static final List<ElementType> PRELOADED_ELEMENT_TYPES = Arrays.asList(
+      ElementType.DATAELEMENT, ElementType.DATAELEMENTGROUP, ElementType.RECORD,
+      ElementType.ENUMERATED_VALUE_DOMAIN, ElementType.DESCRIBED_VALUE_DOMAIN);
+
+  @Value("${dehub.preload.workers:4}")
+  private int workers;
+
+  @Value("${dehub.preload.budgetInSeconds:60}")
+  private long budgetInSeconds;
+
+  @Value("${dehub.preload.maxElements:10000}")
+  private int maxElements;
+
+  private final ElementService elementService;
+
+  @Autowired
+  public CachePreloader(ElementService elementService) {
+    this.elementService = elementService;
+  }
+
+  /**
+   * Preload the elements of all public namespaces as the given user. Elements that can not be
+   * read are skipped.
+   *
+   * @return the number of preloaded elements
+   */
+  public int preload(DSLContext ctx, int userId) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    long deadline = start + TimeUnit.SECONDS.toMillis(budgetInSeconds);
+    AtomicInteger preloaded = new AtomicInteger();
+    List<Namespace> namespaces = NamespaceHandler.getPublicNamespaces(ctx);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(workers, namespaces.size())), runnable -> {
+          Thread thread = new Thread(runnable, "dehub-preloader");
+          thread.setDaemon(true);
+          return thread;
+        });
+    try {
+      for (Namespace namespace : namespaces) {
+        executor.execute(() -> preloadNamespace(ctx, userId,
+            namespace.getIdentification().getIdentifier(), deadline, preloaded));
+      }
+      executor.shutdown();
+      if (!executor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+          TimeUnit.MILLISECONDS)) {
+        log.info("Cache preload budget of " + budgetInSeconds + " seconds used up");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    log.info("Preloaded " + preloaded.get() + " elements of " + namespaces.size()
+        + " namespaces in " + (System.currentTimeMillis() - start) + " ms");
+    return preloaded.get();
+  }
+
+  private void preloadNamespace(DSLContext ctx, int userId, int namespaceIdentifier,
+      long deadline, AtomicInteger preloaded) {
+    try {
+      List<Member> members = NamespaceHandler.getNamespaceMembers(ctx, userId,
+          namespaceIdentifier, PRELOADED_ELEMENT_TYPES, false);
+      for (Member member : members) {
+        if (Thread.currentThread().isInterrupted() || System.currentTimeMillis() > deadline
+            || preloaded.get() >= maxElements) {
+          return;
+        }
+        if (!ElementCache.isCacheable(member.getStatus())) {
+          continue;
+        }
+        try {
+          elementService.read(ctx, userId, member.getElementUrn());
+          preloaded.incrementAndGet();
+        } catch (RuntimeException e) {
+          log.debug("Could not preload " + member.getElementUrn(), e);
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not preload namespace " + namespaceIdentifier, e);
+    }
+  }
+}
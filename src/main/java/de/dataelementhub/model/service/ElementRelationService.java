@@ -2,10 +2,21 @@ package de.dataelementhub.model.service;
 
 import de.dataelementhub.dal.jooq.enums.RelationType;
 import de.dataelementhub.model.dto.ElementRelation;
+import de.dataelementhub.model.handler.CacheInvalidationBus;
+import de.dataelementhub.model.handler.CacheInvalidationBus.Region;
+import de.dataelementhub.model.handler.ElementRelationGraph;
 import de.dataelementhub.model.handler.ElementRelationHandler;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -14,6 +25,26 @@ import org.springframework.stereotype.Service;
 @Service
 public class ElementRelationService {
 
+  @Value("${dehub.relations.useGraphIndex:false}")
+  private boolean useGraphIndex;
+
+  private final Map<Set<RelationType>, ElementRelationGraph> graphs = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Create the service. The relation graphs are dropped whenever relations are changed on any
+   * node, by this service or by handlers. Every drop increases the generation, so a graph built
+   * while relations changed is not kept.
+   */
+  public ElementRelationService() {
+    CacheInvalidationBus.subscribe((region, key) -> {
+      if (region == Region.RELATION) {
+        generation.incrementAndGet();
+        graphs.clear();
+      }
+    });
+  }
+
   /**
    * Get a list of all ElementRelations.
    */
@@ -36,6 +67,51 @@ public class ElementRelationService {
     return ElementRelationHandler.getElementRelations(ctx, relationTypes);
   }
 
+  /**
+   * Get one page of ElementRelations of the provided types (all types if null), starting after
+   * the last relation of the previous page.
+   */
+  public List<ElementRelation> listPage(DSLContext ctx, List<RelationType> relationTypes,
+      ElementRelation after, int limit) {
+    return ElementRelationHandler.getElementRelations(ctx, null, relationTypes, after, limit);
+  }
+
+  /**
+   * Stream all ElementRelations of the provided types (all types if null). The stream must be
+   * closed and should be consumed inside a transaction.
+   */
+  public Stream<ElementRelation> stream(DSLContext ctx, List<RelationType> relationTypes,
+      int fetchSize) {
+    return ElementRelationHandler.streamElementRelations(ctx, null, relationTypes, fetchSize);
+  }
+
+  /**
+   * Get all elements transitively related to an element by the provided relation types (all
+   * types if null), with the number of hops to reach them. If the graph index is enabled, the
+   * relations of the requested types are loaded into memory on first use and kept until
+   * relations are changed. A graph whose relations changed while it was built answers only the
+   * call that built it.
+   */
+  public Map<String, Integer> getRelatedTransitive(DSLContext ctx, String urn,
+      List<RelationType> relationTypes, int maxDepth) {
+    if (!useGraphIndex) {
+      return ElementRelationHandler.getRelatedTransitive(ctx, urn, relationTypes, maxDepth);
+    }
+    Set<RelationType> key = relationTypes == null || relationTypes.isEmpty()
+        ? EnumSet.allOf(RelationType.class) : EnumSet.copyOf(relationTypes);
+    ElementRelationGraph graph = graphs.get(key);
+    if (graph == null) {
+      long buildGeneration = generation.get();
+      graph = ElementRelationGraph.build(ctx, new ArrayList<>(key));
+      graphs.putIfAbsent(key, graph);
+      if (generation.get() != buildGeneration) {
+        // Relations changed during the build, the drop may have run before the graph was stored
+        graphs.remove(key, graph);
+      }
+    }
+    return graph.getRelatedTransitive(urn, maxDepth);
+  }
+
   /**
    * Insert a new dataelement relation.
    */
@@ -44,6 +120,32 @@ public class ElementRelationService {
     ElementRelationHandler.insertRelation(ctx, userId, elementRelation);
   }
 
+  /**
+   * Insert or update dataelement relations in chunks of chunkSize rows.
+   */
+  public int upsertDataElementRelations(DSLContext ctx, int userId,
+      List<de.dataelementhub.dal.jooq.tables.pojos.ElementRelation> elementRelations,
+      int chunkSize) {
+    return ElementRelationHandler.upsertRelations(ctx, userId, elementRelations, chunkSize);
+  }
+
+  /**
+   * Delete dataelement relations in chunks of chunkSize rows.
+   */
+  public int deleteDataElementRelations(DSLContext ctx, int userId,
+      List<de.dataelementhub.dal.jooq.tables.pojos.ElementRelation> elementRelations,
+      int chunkSize) {
+    return ElementRelationHandler.deleteRelations(ctx, userId, elementRelations, chunkSize);
+  }
+
+  /**
+   * Delete all dataelement relations of an element and/or of the provided relation types.
+   */
+  public int deleteDataElementRelations(DSLContext ctx, int userId, String elementUrn,
+      List<RelationType> relationTypes) {
+    return ElementRelationHandler.deleteRelations(ctx, userId, elementUrn, relationTypes);
+  }
+
   /**
    * Update an existing dataelement relation.
    */
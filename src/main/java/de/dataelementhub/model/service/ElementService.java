@@ -26,21 +26,38 @@ import de.dataelementhub.model.handler.AccessLevelHandler;
 import de.dataelementhub.model.handler.ElementRelationHandler;
 import de.dataelementhub.model.handler.element.DataElementGroupHandler;
 import de.dataelementhub.model.handler.element.DataElementHandler;
+import de.dataelementhub.model.handler.element.ElementCache;
 import de.dataelementhub.model.handler.element.ElementHandler;
 import de.dataelementhub.model.handler.element.ElementPathHandler;
+import de.dataelementhub.model.handler.element.ElementSnapshotStore;
 import de.dataelementhub.model.handler.element.NamespaceHandler;
 import de.dataelementhub.model.handler.element.RecordHandler;
 import de.dataelementhub.model.handler.element.section.ConceptAssociationHandler;
 import de.dataelementhub.model.handler.element.section.DefinitionHandler;
 import de.dataelementhub.model.handler.element.section.IdentificationHandler;
+import de.dataelementhub.model.handler.element.section.IdentifierAllocator;
 import de.dataelementhub.model.handler.element.section.MemberHandler;
 import de.dataelementhub.model.handler.element.section.SlotHandler;
 import de.dataelementhub.model.handler.element.section.ValueDomainHandler;
 import de.dataelementhub.model.handler.element.section.validation.PermittedValueHandler;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
 import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -49,6 +66,60 @@ import org.springframework.stereotype.Service;
 @Service
 public class ElementService {
 
+  /**
+   * Set the number of cached released elements after which the least recently used are evicted.
+   */
+  @Value("${dehub.element.cacheMaxSize:10000}")
+  public void setCacheMaxSize(int cacheMaxSize) {
+    ElementCache.setMaxSize(cacheMaxSize);
+  }
+
+  /**
+   * Set the size of all cached released elements in megabytes after which the least recently
+   * used are evicted. 0 disables the cache.
+   */
+  @Value("${dehub.element.cacheMaxWeightInMegabytes:64}")
+  public void setCacheMaxWeightInMegabytes(long cacheMaxWeightInMegabytes) {
+    ElementCache.setMaxWeightInBytes(cacheMaxWeightInMegabytes * 1024 * 1024);
+  }
+
+  /**
+   * Create missing identifier sequences on connections of their own, so they are committed even
+   * if the transaction that first needs them is rolled back.
+   */
+  @Autowired
+  public void setIdentifierDataSource(ObjectProvider<DataSource> dataSource) {
+    IdentifierAllocator.setDataSource(dataSource.getIfAvailable());
+  }
+
+  /**
+   * Keep cached released elements in a memory-mapped snapshot file of the given size instead of
+   * on the heap. Snapshots in the file are reused after a restart if the element classes and the
+   * elements in the database did not change since they were written. An empty file name keeps
+   * the cache on the heap. The store is opened after the cache invalidation channel, so no
+   * invalidation is missed between checking the database and listening to other nodes.
+   */
+  @Autowired
+  public void setSnapshotStore(@Value("${dehub.element.snapshotFile:}") String snapshotFile,
+      @Value("${dehub.element.snapshotSizeInMegabytes:256}") int snapshotSizeInMegabytes,
+      CacheInvalidationService cacheInvalidationService, ObjectProvider<DataSource> dataSource)
+      throws IOException {
+    if (snapshotSizeInMegabytes <= 0 || snapshotSizeInMegabytes >= 2048) {
+      throw new IllegalArgumentException("Snapshot size must be between 1 and 2047 megabytes.");
+    }
+    if (snapshotFile.isEmpty()) {
+      ElementSnapshotStore.open(null, 0, 0, 0);
+      return;
+    }
+    // Without a database the snapshots can not be checked, a random mark discards them
+    DataSource available = dataSource.getIfAvailable();
+    long changeMark = available != null
+        ? IdentificationHandler.getChangeMark(DSL.using(available, SQLDialect.POSTGRES))
+        : UUID.randomUUID().getMostSignificantBits();
+    ElementSnapshotStore.open(new File(snapshotFile), snapshotSizeInMegabytes * 1024 * 1024,
+        ElementCache.fingerprint(), changeMark);
+  }
+
   /**
    * Create a new Element and return its new ID.
    */
@@ -71,6 +142,86 @@ public class ElementService {
           "Your element contains multiple definitions of at least one language");
     }
 
+    return createByType(ctx, userId, element);
+  }
+
+  /**
+   * Create a list of new Elements in one transaction and return their new scoped identifiers in
+   * the order of the given elements. Write access and namespace status are checked once per
+   * namespace. Simple elements are written with set-based inserts, all others are created by
+   * their handlers.
+   */
+  public List<ScopedIdentifier> createAll(DSLContext ctx, int userId, List<Element> elements)
+      throws IllegalAccessException, IllegalArgumentException {
+    Map<String, List<Integer>> indicesByNamespace = new LinkedHashMap<>();
+    for (int i = 0; i < elements.size(); i++) {
+      Element element = elements.get(i);
+      element.setIdentification(IdentificationHandler.removeUserSubmittedIdentifierAndRevision(
+          element.getIdentification()));
+      if (element.getIdentification().getElementType() == ElementType.NAMESPACE) {
+        throw new IllegalArgumentException("Namespaces can not be created in bulk");
+      }
+      if (DefinitionHandler.hasDuplicateLanguage(element.getDefinitions())) {
+        throw new IllegalArgumentException(
+            "Your element contains multiple definitions of at least one language");
+      }
+      indicesByNamespace.computeIfAbsent(element.getIdentification().getNamespaceUrn(),
+          k -> new ArrayList<>()).add(i);
+    }
+
+    for (Map.Entry<String, List<Integer>> entry : indicesByNamespace.entrySet()) {
+      AccessLevelType accessLevel = AccessLevelHandler
+          .getAccessLevelByUserAndNamespaceUrn(ctx, userId, entry.getKey());
+      if (!DaoUtil.WRITE_ACCESS_TYPES.contains(accessLevel)) {
+        throw new IllegalAccessException("User has no write access to namespace.");
+      }
+      Namespace namespace = NamespaceHandler.getByUrn(ctx, userId, entry.getKey());
+      for (int index : entry.getValue()) {
+        if (ElementHandler.statusMismatch(namespace, elements.get(index))) {
+          throw new IllegalStateException(
+              "Unreleased namespaces can't contain released elements");
+        }
+      }
+    }
+
+    try {
+      return ctx.transactionResult(configuration -> {
+        DSLContext transactionCtx = DSL.using(configuration);
+        ScopedIdentifier[] scopedIdentifiers = new ScopedIdentifier[elements.size()];
+        for (Map.Entry<String, List<Integer>> entry : indicesByNamespace.entrySet()) {
+          List<Integer> bulkIndices = new ArrayList<>();
+          for (int index : entry.getValue()) {
+            if (ElementHandler.isBulkCreatable(elements.get(index))) {
+              bulkIndices.add(index);
+            } else {
+              scopedIdentifiers[index] = createByType(transactionCtx, userId,
+                  elements.get(index));
+            }
+          }
+          if (!bulkIndices.isEmpty()) {
+            List<ScopedIdentifier> created = ElementHandler.createAll(transactionCtx, userId,
+                entry.getKey(),
+                bulkIndices.stream().map(elements::get).collect(Collectors.toList()));
+            for (int i = 0; i < bulkIndices.size(); i++) {
+              scopedIdentifiers[bulkIndices.get(i)] = created.get(i);
+            }
+          }
+        }
+        return Arrays.asList(scopedIdentifiers);
+      });
+    } catch (DataAccessException e) {
+      if (e.getCause() instanceof IllegalAccessException) {
+        throw (IllegalAccessException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Create an element with the handler belonging to its element type.
+   */
+  private ScopedIdentifier createByType(DSLContext ctx, int userId, Element element)
+      throws IllegalAccessException {
     switch (element.getIdentification().getElementType()) {
       case DATAELEMENT:
         return DataElementHandler.create(ctx, userId, (DataElement) element);
@@ -92,6 +243,15 @@ public class ElementService {
    * Get an Element by its urn.
    */
   public Element read(DSLContext ctx, int userId, String urn) {
+    return read(ctx, userId, urn, null);
+  }
+
+  /**
+   * Get an Element by its urn with only the definitions in the requested languages
+   * (Accept-Language style). All definitions are read if no language is requested or none of the
+   * definitions is in a requested language.
+   */
+  public Element read(DSLContext ctx, int userId, String urn, String languages) {
     Identification identification = IdentificationHandler.fromUrn(ctx, urn);
     if (identification == null) {
       throw new NoSuchElementException(urn);
@@ -101,18 +261,37 @@ public class ElementService {
     // no access rights to the namespace. TODO: Solve this in a sane way.
     Namespace namespace = NamespaceHandler.getByUrn(ctx, userId, identification.getNamespaceUrn());
 
+    if (ElementCache.isCacheable(identification.getStatus())) {
+      Element element = ElementCache.get(identification.getUrn(), languages);
+      if (element == null) {
+        long generation = ElementCache.generation();
+        element = readByType(ctx, userId, identification, languages);
+        ElementCache.put(identification.getUrn(), languages, element, generation);
+      } else {
+        element.getIdentification().setStatus(identification.getStatus());
+      }
+      return element;
+    }
+    return readByType(ctx, userId, identification, languages);
+  }
+
+  /**
+   * Get an Element by its identification from the handler of its element type.
+   */
+  private Element readByType(DSLContext ctx, int userId, Identification identification,
+      String languages) {
     switch (identification.getElementType()) {
       case DATAELEMENT:
-        return DataElementHandler.get(ctx, userId, identification);
+        return DataElementHandler.get(ctx, userId, identification, languages);
       case DATAELEMENTGROUP:
-        return DataElementGroupHandler.get(ctx, userId, identification);
+        return DataElementGroupHandler.get(ctx, userId, identification, languages);
       case RECORD:
-        return RecordHandler.get(ctx, userId, identification);
+        return RecordHandler.get(ctx, userId, identification, languages);
       case ENUMERATED_VALUE_DOMAIN:
       case DESCRIBED_VALUE_DOMAIN:
-        return ValueDomainHandler.get(ctx, userId, identification);
+        return ValueDomainHandler.get(ctx, userId, identification, languages);
       case PERMISSIBLE_VALUE:
-        return PermittedValueHandler.get(ctx, userId, identification);
+        return PermittedValueHandler.get(ctx, userId, identification, languages);
       default:
         throw new IllegalArgumentException("Element Type is not supported");
     }
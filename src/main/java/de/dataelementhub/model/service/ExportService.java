@@ -3,15 +3,16 @@ package de.dataelementhub.model.service;
 import de.dataelementhub.model.dto.importexport.ExportInfo;
 import de.dataelementhub.model.dto.importexport.ExportRequest;
 import de.dataelementhub.model.handler.export.ExportHandler;
+import de.dataelementhub.model.handler.export.ExportIndexHandler;
+import de.dataelementhub.model.handler.export.StagedElementHandler;
 import java.io.File;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -28,6 +29,25 @@ public class ExportService {
   @Value("${dehub.export.exportDirectory}")
   private String exportDirectory;
 
+  @Value("${dehub.export.cacheRetentionInDays:${dehub.export.expirationPeriodInDays}}")
+  private int cacheRetentionInDays;
+
+  /**
+   * Set the compression level of export archives (0-9, -1 for the default level).
+   */
+  @Value("${dehub.export.compressionLevel:-1}")
+  public void setCompressionLevel(int compressionLevel) {
+    ExportHandler.setCompressionLevel(compressionLevel);
+  }
+
+  /**
+   * Set the number of workers that read the elements of all exports together.
+   */
+  @Value("${dehub.export.resolverWorkers:4}")
+  public void setResolverWorkers(int resolverWorkers) {
+    StagedElementHandler.setResolverWorkers(resolverWorkers);
+  }
+
   /**
    * Get predefined export expiration period.
    */
@@ -40,59 +60,66 @@ public class ExportService {
   public void exportService(DSLContext ctx, ExportRequest exportRequest,
       int userId, MediaType mediaType,
       Boolean fullExport, String timestamp, String exportDirectory) {
-    ExportHandler.export(
-        ctx, exportRequest, userId, mediaType, fullExport, timestamp, exportDirectory);
+    ExportHandler.export(ctx, exportRequest, userId, mediaType, fullExport, timestamp,
+        exportDirectory, cacheRetentionInDays);
   }
 
   /** returns the import/Export status PROCESSING/DONE/INTERRUPTED/NOT DEFINED.
    **/
   public ExportInfo exportInfo(String identifier, int userId, String exportDirectory) {
-    new File(exportDirectory + File.separator + userId).mkdir();
-    File[] exports =
-        Objects
-            .requireNonNull(new File(exportDirectory + File.separator + userId)
-        .listFiles(File::isDirectory));
-    ExportInfo exportInfo = new ExportInfo();
-    exportInfo.setStatus("NOT DEFINED");
-    for (File export : exports) {
-      if (export.getName().split("-")[0].equals(identifier)) {
-        String[] itemParts = export.getName().split("-");
-        String[] tsp = itemParts[0].split("_");
-        Timestamp timestamp = Timestamp.valueOf(tsp[0] + "-" + tsp[1] + "-" + tsp[2]
-            + " " + tsp[3] + ":" + tsp[4] + ":" + tsp[5] + "." + tsp[6]);
-        exportInfo.setId(itemParts[0]);
-        exportInfo.setStatus(itemParts[2].toUpperCase());
-        exportInfo.setTimestamp(timestamp);
-        exportInfo.setMediaType(MediaType.parseMediaType("application/" + itemParts[1]));
-        exportInfo.setProgress(itemParts[2].equalsIgnoreCase("DONE")
-            ? 1 : ExportHandler.exportProgress);
-      }
+    String export = ExportIndexHandler.read(exportDirectory, userId).get(identifier);
+    if (export == null) {
+      ExportInfo exportInfo = new ExportInfo();
+      exportInfo.setStatus("NOT DEFINED");
+      return exportInfo;
     }
-    return exportInfo;
+    return toExportInfo(export);
   }
 
   /** Returns all Exports. */
   public List<ExportInfo> allExports(int userId, String exportDirectory) {
-    new File(exportDirectory + File.separator + userId).mkdir();
-    File inputFolder = new File(exportDirectory + File.separator + userId);
-    List<ExportInfo> exportDescriptions = new ArrayList<>();
-    List<String> listOfFiles = Arrays.stream(inputFolder.listFiles()).map(File::getName).collect(
-        Collectors.toList());
-    for (String item : listOfFiles) {
-      String[] itemParts = item.split("-");
-      String[] tsp = itemParts[0].split("_");
-      Timestamp timestamp = Timestamp.valueOf(tsp[0] + "-" + tsp[1] + "-" + tsp[2]
-          + " " + tsp[3] + ":" + tsp[4] + ":" + tsp[5] + "." + tsp[6]);
-      ExportInfo exportInfo = new ExportInfo();
-      exportInfo.setId(itemParts[0]);
-      exportInfo.setStatus(itemParts[2].toUpperCase());
-      exportInfo.setTimestamp(timestamp);
-      exportInfo.setMediaType(MediaType.parseMediaType("application/" + itemParts[1]));
-      exportDescriptions.add(exportInfo);
-      exportInfo.setProgress(itemParts[2].equalsIgnoreCase("DONE")
-          ? 1 : ExportHandler.exportProgress);
+    return ExportIndexHandler.read(exportDirectory, userId).values().stream()
+        .map(ExportService::toExportInfo)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the archive of a finished export as a resource or null if the export does not exist
+   * or is not done. The resource is backed by a file channel, so it can be streamed to the client
+   * without being buffered.
+   */
+  public Resource exportArchive(String identifier, int userId, String exportDirectory) {
+    String export = ExportIndexHandler.read(exportDirectory, userId).get(identifier);
+    if (export == null || !export.endsWith(ExportHandler.SUFFIX_DONE)) {
+      return null;
     }
-    return exportDescriptions;
+    File archive = new File(exportDirectory + File.separator + userId + File.separator + export
+        + File.separator + identifier + ".zip");
+    return archive.isFile() ? new FileSystemResource(archive) : null;
+  }
+
+  /**
+   * Parse the name of an export directory ({@code timestamp-subtype-status}).
+   */
+  private static ExportInfo toExportInfo(String export) {
+    String[] itemParts = export.split("-");
+    ExportInfo exportInfo = new ExportInfo();
+    exportInfo.setId(itemParts[0]);
+    exportInfo.setStatus(itemParts[2].toUpperCase());
+    exportInfo.setTimestamp(toTimestamp(itemParts[0]));
+    exportInfo.setMediaType(MediaType.parseMediaType("application/" + itemParts[1]));
+    exportInfo.setProgress(itemParts[2].equalsIgnoreCase("DONE")
+        ? 1 : ExportHandler.exportProgress);
+    return exportInfo;
+  }
+
+  /**
+   * Convert an export id ({@code yyyy_MM_dd_HH_mm_ss_SSS}) to a timestamp.
+   */
+  public static Timestamp toTimestamp(String exportId) {
+    String[] tsp = exportId.split("_");
+    return Timestamp.valueOf(tsp[0] + "-" + tsp[1] + "-" + tsp[2]
+        + " " + tsp[3] + ":" + tsp[4] + ":" + tsp[5] + "." + tsp[6]);
   }
 
   /**
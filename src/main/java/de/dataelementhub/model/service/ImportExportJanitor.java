@@ -0,0 +1,186 @@
+package de.dataelementhub.model.service;
+
+import static de.dataelementhub.dal.jooq.Tables.IMPORT;
+
+import de.dataelementhub.dal.jooq.enums.ProcessStatus;
+import de.dataelementhub.model.handler.export.ExportCacheHandler;
+import de.dataelementhub.model.handler.export.ExportIndexHandler;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.http.fileupload.FileUtils;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Import Export Janitor.
+ *
+ * <p>Periodically deletes exports and import workspaces that are older than
+ * {@code dehub.export.expirationPeriodInDays} and cached export archives older than
+ * {@code dehub.export.cacheRetentionInDays}. Exports are found through the export index of each
+ * user, so only the user directories are listed and no export directory name is parsed. Import
+ * workspaces are only deleted when their import is no longer processing on any node and no job of
+ * it is queued or running here.
+ */
+@Slf4j
+@Service
+public class ImportExportJanitor implements InitializingBean, DisposableBean {
+
+  @Value("${dehub.export.expirationPeriodInDays}")
+  private int expirationPeriodInDays;
+
+  @Value("${dehub.export.cacheRetentionInDays:${dehub.export.expirationPeriodInDays}}")
+  private int cacheRetentionInDays;
+
+  @Value("${dehub.export.exportDirectory}")
+  private String exportDirectory;
+
+  @Value("${dehub.import.importDirectory:}")
+  private String importDirectory;
+
+  @Value("${dehub.janitor.intervalInMinutes:60}")
+  private long intervalInMinutes;
+
+  private final ImportJobScheduler importJobScheduler;
+  private final ObjectProvider<DataSource> dataSource;
+  private ScheduledExecutorService executor;
+
+  @Autowired
+  public ImportExportJanitor(ImportJobScheduler importJobScheduler,
+      ObjectProvider<DataSource> dataSource) {
+    this.importJobScheduler = importJobScheduler;
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (intervalInMinutes <= 0) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dehub-janitor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::clean, intervalInMinutes, intervalInMinutes,
+        TimeUnit.MINUTES);
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Delete all expired exports, cached export archives and import workspaces.
+   */
+  public void clean() {
+    try {
+      if (exportDirectory != null && !exportDirectory.isEmpty()) {
+        cleanExports();
+        ExportCacheHandler.deleteExpired(exportDirectory, cacheRetentionInDays);
+      }
+      if (importDirectory != null && !importDirectory.isEmpty()) {
+        cleanImports();
+      }
+    } catch (RuntimeException e) {
+      log.error("Cleaning import and export directories failed", e);
+    }
+  }
+
+  private void cleanExports() {
+    long expiredBefore = expiredBefore();
+    for (File userDirectory : listUserDirectories(exportDirectory)) {
+      int userId = Integer.parseInt(userDirectory.getName());
+      for (Map.Entry<String, String> export
+          : ExportIndexHandler.read(exportDirectory, userId).entrySet()) {
+        try {
+          if (ExportService.toTimestamp(export.getKey()).getTime() >= expiredBefore) {
+            continue;
+          }
+        } catch (RuntimeException e) {
+          log.warn("Skipping export " + export.getKey() + " of user " + userId
+              + " with an invalid id", e);
+          continue;
+        }
+        if (delete(new File(userDirectory, export.getValue()))) {
+          ExportIndexHandler.remove(exportDirectory, userId, export.getKey());
+        }
+      }
+    }
+  }
+
+  private void cleanImports() {
+    DataSource available = dataSource.getIfAvailable();
+    if (available == null) {
+      log.warn("No data source available, import workspaces are not cleaned");
+      return;
+    }
+    long expiredBefore = expiredBefore();
+    Map<Integer, File> expired = new HashMap<>();
+    for (File userDirectory : listUserDirectories(importDirectory)) {
+      File[] imports = userDirectory.listFiles(
+          file -> file.isDirectory() && file.getName().matches("\\d+"));
+      if (imports == null) {
+        continue;
+      }
+      for (File workspace : imports) {
+        if (workspace.lastModified() < expiredBefore) {
+          expired.put(Integer.parseInt(workspace.getName()), workspace);
+        }
+      }
+    }
+    if (expired.isEmpty()) {
+      return;
+    }
+    // Jobs of other nodes are only visible in the status of the import
+    Set<Integer> processing = new HashSet<>(DSL.using(available, SQLDialect.POSTGRES)
+        .select(IMPORT.ID).from(IMPORT)
+        .where(IMPORT.ID.in(expired.keySet()))
+        .and(IMPORT.STATUS.eq(ProcessStatus.PROCESSING))
+        .fetch(IMPORT.ID));
+    expired.forEach((importId, workspace) -> {
+      if (!processing.contains(importId) && !importJobScheduler.isScheduled(importId)) {
+        delete(workspace);
+      }
+    });
+  }
+
+  private long expiredBefore() {
+    return System.currentTimeMillis() - TimeUnit.DAYS.toMillis(expirationPeriodInDays);
+  }
+
+  private static File[] listUserDirectories(String directory) {
+    File[] userDirectories = new File(directory)
+        .listFiles(file -> file.isDirectory() && file.getName().matches("\\d+"));
+    return userDirectories != null ? userDirectories : new File[0];
+  }
+
+  private static boolean delete(File directory) {
+    try {
+      if (directory.exists()) {
+        FileUtils.deleteDirectory(directory);
+      }
+      return true;
+    } catch (IOException e) {
+      log.warn("Could not delete " + directory, e);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package de.dataelementhub.model.service;
+
+import static de.dataelementhub.dal.jooq.Tables.IMPORT;
+
+import de.dataelementhub.dal.jooq.enums.ProcessStatus;
+import de.dataelementhub.model.handler.importhandler.ImportHandler;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Import Job Scheduler.
+ *
+ * <p>Runs import and conversion jobs on an executor of their own, so long-running imports do not
+ * block other asynchronous work. The number of running jobs is limited globally and per user,
+ * further jobs wait in a bounded queue and are rejected once it is full. Running jobs are
+ * cancelled by interrupting them; the import handlers check for interruption between elements.
+ * Virtual threads are used when the JDK provides them.
+ */
+@Slf4j
+@Service
+public class ImportJobScheduler implements DisposableBean {
+
+  /**
+   * A unit of work of an import.
+   */
+  @FunctionalInterface
+  public interface ImportJob {
+    void run() throws Exception;
+  }
+
+  @Value("${dehub.import.maxConcurrentJobs:4}")
+  private int maxConcurrentJobs;
+
+  @Value("${dehub.import.maxConcurrentJobsPerUser:1}")
+  private int maxConcurrentJobsPerUser;
+
+  @Value("${dehub.import.queueCapacity:100}")
+  private int queueCapacity;
+
+  @Value("${dehub.import.useVirtualThreads:true}")
+  private boolean useVirtualThreads;
+
+  /**
+   * Set the number of files that are staged in parallel by all imports together. Every worker
+   * uses a connection of its own.
+   */
+  @Value("${dehub.import.stagingWorkers:4}")
+  public void setStagingWorkers(int stagingWorkers) {
+    ImportHandler.setStagingWorkers(stagingWorkers);
+  }
+
+  private ExecutorService executor;
+  private final Deque<QueuedJob> queue = new ArrayDeque<>();
+  private final Set<QueuedJob> running = new HashSet<>();
+  private final Map<Integer, List<QueuedJob>> runningByImport = new HashMap<>();
+  private final Map<Integer, Integer> runningPerUser = new HashMap<>();
+
+  /**
+   * Queue a job for an import. Throws a RejectedExecutionException when the queue is full.
+   */
+  public void submit(DSLContext ctx, int importId, int userId, ImportJob job) {
+    synchronized (this) {
+      if (queue.size() < queueCapacity) {
+        queue.addLast(new QueuedJob(ctx, importId, userId, job));
+        dispatch();
+        return;
+      }
+    }
+    setAborted(ctx, importId, "Import queue is full. Please try again later.");
+    throw new RejectedExecutionException("Import queue is full.");
+  }
+
+  /**
+   * Cancel all queued and running jobs of an import and set the import status to aborted.
+   *
+   * @return true if a job was found for the import.
+   */
+  public boolean cancel(int importId) {
+    QueuedJob removedJob = null;
+    List<QueuedJob> runningJobs;
+    synchronized (this) {
+      for (Iterator<QueuedJob> it = queue.iterator(); it.hasNext(); ) {
+        QueuedJob queuedJob = it.next();
+        if (queuedJob.importId == importId) {
+          it.remove();
+          removedJob = queuedJob;
+        }
+      }
+      runningJobs = new ArrayList<>(runningByImport.getOrDefault(importId, List.of()));
+      for (QueuedJob runningJob : runningJobs) {
+        runningJob.cancelled = true;
+        runningJob.future.cancel(true);
+      }
+    }
+    if (removedJob != null && runningJobs.isEmpty()) {
+      // Running jobs set the status themselves when they stop
+      setAborted(removedJob.ctx, importId, "Import cancelled");
+    }
+    return removedJob != null || !runningJobs.isEmpty();
+  }
+
+  /**
+   * Returns true if a job of the import is queued or running.
+   */
+  public synchronized boolean isScheduled(int importId) {
+    return runningByImport.containsKey(importId)
+        || queue.stream().anyMatch(queuedJob -> queuedJob.importId == importId);
+  }
+
+  /**
+   * Returns the number of jobs waiting to be started.
+   */
+  public synchronized int getQueueSize() {
+    return queue.size();
+  }
+
+  /**
+   * Returns the number of jobs currently running.
+   */
+  public synchronized int getRunningJobs() {
+    return running.size();
+  }
+
+  @Override
+  public synchronized void destroy() {
+    queue.clear();
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Start as many queued jobs as the limits allow. Jobs of users at their limit are skipped, so
+   * one user can not block the queue for everyone else.
+   */
+  private void dispatch() {
+    for (Iterator<QueuedJob> it = queue.iterator();
+        it.hasNext() && running.size() < maxConcurrentJobs; ) {
+      QueuedJob queuedJob = it.next();
+      if (runningPerUser.getOrDefault(queuedJob.userId, 0) >= maxConcurrentJobsPerUser) {
+        continue;
+      }
+      it.remove();
+      running.add(queuedJob);
+      runningByImport.computeIfAbsent(queuedJob.importId, k -> new ArrayList<>()).add(queuedJob);
+      runningPerUser.merge(queuedJob.userId, 1, Integer::sum);
+      queuedJob.future = getExecutor().submit(() -> execute(queuedJob));
+    }
+  }
+
+  private void execute(QueuedJob queuedJob) {
+    try {
+      queuedJob.job.run();
+      if (queuedJob.cancelled || Thread.currentThread().isInterrupted()) {
+        throw new CancellationException();
+      }
+    } catch (CancellationException | InterruptedException e) {
+      setAborted(queuedJob.ctx, queuedJob.importId, "Import cancelled");
+    } catch (Exception e) {
+      log.error("Import " + queuedJob.importId + " failed", e);
+      setAborted(queuedJob.ctx, queuedJob.importId,
+          queuedJob.cancelled ? "Import cancelled" : e.getMessage());
+    } finally {
+      finished(queuedJob);
+    }
+  }
+
+  private synchronized void finished(QueuedJob queuedJob) {
+    running.remove(queuedJob);
+    List<QueuedJob> jobsOfImport = runningByImport.get(queuedJob.importId);
+    if (jobsOfImport != null) {
+      jobsOfImport.remove(queuedJob);
+      if (jobsOfImport.isEmpty()) {
+        runningByImport.remove(queuedJob.importId);
+      }
+    }
+    runningPerUser.computeIfPresent(queuedJob.userId, (k, v) -> v > 1 ? v - 1 : null);
+    dispatch();
+  }
+
+  private static void setAborted(DSLContext ctx, int importId, String label) {
+    ctx.update(IMPORT)
+        .set(IMPORT.STATUS, ProcessStatus.ABORTED)
+        .set(IMPORT.LABEL, label)
+        .where(IMPORT.ID.eq(importId))
+        .execute();
+  }
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = useVirtualThreads ? newVirtualThreadExecutor() : null;
+      if (executor == null) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+          Thread thread = new Thread(runnable, "dehub-import-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Returns an executor starting a virtual thread per job or null if the JDK has no virtual
+   * threads.
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * A job with the import and user it belongs to. Jobs are compared by identity, an import can
+   * have several jobs at the same time.
+   */
+  private static class QueuedJob {
+    private final DSLContext ctx;
+    private final int importId;
+    private final int userId;
+    private final ImportJob job;
+    private volatile Future<?> future;
+    private volatile boolean cancelled;
+
+    private QueuedJob(DSLContext ctx, int importId, int userId, ImportJob job) {
+      this.ctx = ctx;
+      this.importId = importId;
+      this.userId = userId;
+      this.job = job;
+    }
+  }
+}
@@ -16,6 +16,7 @@ import de.dataelementhub.model.handler.importhandler.ImportHandler;
 import de.dataelementhub.model.handler.importhandler.StagedElementHandler;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -23,11 +24,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import org.jooq.DSLContext;
-import org.jooq.Record;
-import org.jooq.Result;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -37,6 +37,13 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 public class ImportService {
 
+  private final ImportJobScheduler importJobScheduler;
+
+  @Autowired
+  public ImportService(ImportJobScheduler importJobScheduler) {
+    this.importJobScheduler = importJobScheduler;
+  }
+
   /**
    * Execute an import.
    **/
@@ -48,32 +55,80 @@ public class ImportService {
     for (MultipartFile file : files) {
       Path fileNameAndPath = Paths.get(destination, file.getOriginalFilename());
       ImportHandler.unzip(fileNameAndPath.toString(), destination);
-      File[] allFilesInFolder = ImportHandler.getAllFilesInFolder(destination);
-      ImportHandler.validateAllFilesInFolder(allFilesInFolder);
-      importToStagingArea(ctx, allFilesInFolder, importId);
     }
+    File[] allFilesInFolder = ImportHandler.getAllFilesInFolder(destination);
+    // Files are validated against the schemas while they are parsed by the import job
+    importToStagingArea(ctx, allFilesInFolder, importId, userId);
   }
 
   /**
-   * Save stagedElements to the staging area.
+   * Execute an import by reading the uploaded zip files as streams. The uploads are only copied
+   * to temporary files on the request thread, every entry is validated, unmarshalled and staged
+   * by the queued import job. Nothing is extracted to disk.
    **/
-  @Async
-  public void importToStagingArea(DSLContext ctx, File[] allFilesInFolder, int importId) {
+  public void executeStreaming(
+      DSLContext ctx, List<MultipartFile> files, int userId, int importId)
+      throws Exception {
+    List<Path> uploads = new ArrayList<>();
     try {
-      ImportHandler.startImportAccordingToFileType(ctx, importId, allFilesInFolder);
-    } catch (Exception e) {
+      for (MultipartFile file : files) {
+        Path upload = Files.createTempFile("dehub-import-" + importId + "-", ".zip");
+        uploads.add(upload);
+        file.transferTo(upload);
+      }
+      importJobScheduler.submit(ctx, importId, userId, () -> {
+        try {
+          ImportHandler.importZipFiles(ctx, uploads, importId);
+        } finally {
+          deleteUploads(uploads);
+        }
+      });
+    } catch (IOException e) {
+      deleteUploads(uploads);
       ctx.update(IMPORT)
           .set(IMPORT.STATUS, ProcessStatus.ABORTED)
           .set(IMPORT.LABEL, e.getMessage())
           .where(IMPORT.ID.eq(importId))
           .execute();
+      throw e;
+    } catch (RejectedExecutionException e) {
+      // The scheduler already marked the import as aborted
+      deleteUploads(uploads);
+      throw e;
+    }
+  }
+
+  private static void deleteUploads(List<Path> uploads) {
+    for (Path upload : uploads) {
+      try {
+        Files.deleteIfExists(upload);
+      } catch (IOException e) {
+        upload.toFile().deleteOnExit();
+      }
     }
   }
 
+  /**
+   * Save stagedElements to the staging area.
+   **/
+  public void importToStagingArea(DSLContext ctx, File[] allFilesInFolder, int importId) {
+    Integer userId = ctx.select(IMPORT.CREATED_BY).from(IMPORT).where(IMPORT.ID.eq(importId))
+        .fetchOneInto(Integer.class);
+    importToStagingArea(ctx, allFilesInFolder, importId, userId != null ? userId : -1);
+  }
+
+  /**
+   * Queue saving stagedElements to the staging area as a job of the given user.
+   **/
+  public void importToStagingArea(DSLContext ctx, File[] allFilesInFolder, int importId,
+      int userId) {
+    importJobScheduler.submit(ctx, importId, userId,
+        () -> ImportHandler.startImportAccordingToFileType(ctx, importId, allFilesInFolder));
+  }
+
   /**
    * Convert stagedElements to Drafts.
    **/
-  @Async
   public void convertToDraft(
       DSLContext ctx, List<String> stagedElementsIds, int userId, int importId) throws
       IllegalAccessException {
@@ -83,7 +138,28 @@ public class ImportService {
     if (!importAccessGranted(ctx, importId, userId)) {
       throw new IllegalAccessException();
     }
-    ImportHandler.convertToDrafts(ctx, importId, userId, stagedElementsIds);
+    importJobScheduler.submit(ctx, importId, userId,
+        () -> ImportHandler.convertToDrafts(ctx, importId, userId, stagedElementsIds));
+  }
+
+  /** Check user grants then cancel the queued or running job of an import. */
+  public void cancelImport(DSLContext ctx, int userId, int importId)
+      throws IllegalAccessException, NoSuchElementException {
+    if (!importExists(ctx, importId)) {
+      throw new NoSuchElementException();
+    }
+    if (!importAccessGranted(ctx, importId, userId)) {
+      throw new IllegalAccessException();
+    }
+    if (!importJobScheduler.cancel(importId)) {
+      // The job is not known here (e.g. it runs on another node), only mark it as aborted
+      ctx.update(IMPORT)
+          .set(IMPORT.STATUS, ProcessStatus.ABORTED)
+          .set(IMPORT.LABEL, "Import cancelled")
+          .where(IMPORT.ID.eq(importId))
+          .and(IMPORT.STATUS.eq(ProcessStatus.PROCESSING))
+          .execute();
+    }
   }
 
   /** Check user grants then delete staged import. */
@@ -107,15 +183,7 @@ public class ImportService {
   /** Generate importId. */
   public int generateImportId(DSLContext ctx, String namespaceUrn, int userId,
       List<MultipartFile> files, String importDirectory) throws IOException {
-    int namespaceId = IdentificationHandler
-        .getScopedIdentifier(ctx, namespaceUrn).getNamespaceId();
-    ImportRecord importIdRecord = ctx.insertInto(IMPORT)
-        .set(IMPORT.NAMESPACE_ID, namespaceId)
-        .set(IMPORT.STATUS, ProcessStatus.PROCESSING)
-        .set(IMPORT.CREATED_BY, userId)
-        .returning(IMPORT.ID)
-        .fetchOne();
-    int importId = importIdRecord != null ? importIdRecord.getId() : -1;
+    int importId = generateImportId(ctx, namespaceUrn, userId);
     String destination = importDirectory + File.separator + userId + File.separator + importId;
     new File(importDirectory + File.separator + userId).mkdir();
     new File(destination).mkdir();
@@ -126,19 +194,25 @@ public class ImportService {
     return importId;
   }
 
+  /** Generate importId without storing any upload, used by streaming imports. */
+  public int generateImportId(DSLContext ctx, String namespaceUrn, int userId) {
+    int namespaceId = IdentificationHandler
+        .getScopedIdentifier(ctx, namespaceUrn).getNamespaceId();
+    ImportRecord importIdRecord = ctx.insertInto(IMPORT)
+        .set(IMPORT.NAMESPACE_ID, namespaceId)
+        .set(IMPORT.STATUS, ProcessStatus.PROCESSING)
+        .set(IMPORT.CREATED_BY, userId)
+        .returning(IMPORT.ID)
+        .fetchOne();
+    return importIdRecord != null ? importIdRecord.getId() : -1;
+  }
+
   /** Returns all Imports. */
   public List<ImportInfo> listAllImports(DSLContext ctx, int userId) {
-    List<ImportInfo> importInfoList = new ArrayList<>();
     List<ImportRecord> imports = ctx.selectFrom(IMPORT).where(IMPORT.CREATED_BY.eq(userId)
         .or(IMPORT.NAMESPACE_ID.in(DaoUtil.getUserNamespaceAccessQuery(ctx, userId,
             allowedAccessLevelTypes())))).fetch();
-    imports.forEach(
-        importRecord -> {
-          ImportInfo importInfo = ImportHandler.importRecordToImportInfo(ctx, importRecord);
-          importInfoList.add(importInfo);
-        }
-    );
-    return importInfoList;
+    return ImportHandler.importRecordsToImportInfos(ctx, imports);
   }
 
   /** Get import info by ID. */
@@ -163,43 +237,14 @@ public class ImportService {
       DSLContext ctx, int importId, int userId,
       Boolean hideSubElements, Boolean onlyConverted)
       throws IllegalAccessException, NoSuchElementException {
-    Result<Record> stagingRecords;
     if (!importExists(ctx, importId)) {
       throw new NoSuchElementException();
     }
     if (!importAccessGranted(ctx, importId, userId)) {
       throw new IllegalAccessException();
     }
-    if (hideSubElements) {
-      List<String> subElements = new ArrayList<>();
-      for (String s : ctx.select(STAGING.MEMBERS)
-          .from(STAGING)
-          .where(STAGING.IMPORT_ID.eq(importId)).fetch().into(String.class)) {
-        String[] split = s.split(";");
-        subElements.addAll(List.of(split));
-      }
-      stagingRecords = ctx
-          .select()
-          .from(STAGING).where(STAGING.IMPORT_ID.eq(importId))
-          .and(String.valueOf(ctx.fetchExists(ctx.selectFrom(IMPORT)
-              .where(IMPORT.ID.eq(importId)).and(IMPORT.CREATED_BY.eq(userId)))))
-          .and(STAGING.STAGED_ELEMENT_ID.notIn(subElements))
-          .fetch();
-    } else {
-      stagingRecords = ctx
-          .select()
-          .from(STAGING).where(STAGING.IMPORT_ID.eq(importId))
-          .and(String.valueOf(ctx.fetchExists(ctx.selectFrom(IMPORT)
-              .where(IMPORT.ID.eq(importId)).and(IMPORT.CREATED_BY.eq(userId)))))
-          .fetch();
-    }
-    List<StagedElement> stagedElements =
-        StagedElementHandler.stagingRecordsToStagedElements(ctx, stagingRecords);
-    if (onlyConverted) {
-      stagedElements = stagedElements.stream().filter(se -> se.getElementUrn() != null).collect(
-          Collectors.toList());
-    }
-    return stagedElements;
+    return StagedElementHandler.getStagedElements(ctx, importId, userId, hideSubElements,
+        onlyConverted);
   }
 
   /** Get StagedElement Members. */
@@ -1,5 +1,7 @@
 package de.dataelementhub.model.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.networknt.schema.JsonSchema;
@@ -8,6 +10,8 @@ import com.networknt.schema.SpecVersion.VersionFlag;
 import com.networknt.schema.ValidationMessage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Set;
 import org.springframework.stereotype.Service;
 
@@ -18,8 +22,17 @@ import org.springframework.stereotype.Service;
 public class JsonValidationService {
 
   public static final String DEHUB_ELEMENT_VALIDATION_JSON = "schema/dehubElementValidation.json";
+  private static final JsonSchemaFactory SCHEMA_FACTORY =
+      JsonSchemaFactory.getInstance(VersionFlag.V7);
   private final ObjectMapper mapper = new ObjectMapper();
 
+  /**
+   * The compiled element schema. JsonSchema instances are immutable after loading and can be
+   * shared between threads.
+   */
+  private final JsonSchema elementSchema =
+      getJsonSchemaFromClasspath(DEHUB_ELEMENT_VALIDATION_JSON);
+
   /**
    * converts jsonString to jsonNode.
    */
@@ -31,26 +44,85 @@ public class JsonValidationService {
    * reads DRAFT_7 jsonSchema from Classpath.
    */
   protected JsonSchema getJsonSchemaFromClasspath(String name) {
-    JsonSchemaFactory factory = JsonSchemaFactory.getInstance(VersionFlag.V7);
-    InputStream is = Thread.currentThread().getContextClassLoader()
-        .getResourceAsStream(name);
-    return factory.getSchema(is);
+    try (InputStream is = Thread.currentThread().getContextClassLoader()
+        .getResourceAsStream(name)) {
+      if (is == null) {
+        throw new IllegalStateException("Schema not found on classpath: " + name);
+      }
+      return SCHEMA_FACTORY.getSchema(is);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   /**
    * validates a given jsonString against dehubElementValidation.json.
    */
   public void validate(String jsonNodeToValidate) throws IOException {
-    JsonSchema schema = getJsonSchemaFromClasspath(DEHUB_ELEMENT_VALIDATION_JSON);
-    JsonNode node = getJsonNodeFromStringContent(jsonNodeToValidate);
-    Set<ValidationMessage> errors = schema.validate(node);
+    String errors = collectErrors(getJsonNodeFromStringContent(jsonNodeToValidate));
+    if (!errors.isEmpty()) {
+      throw new IOException(
+          "The JSON object you submitted did not pass validation.\n" + errors);
+    }
+  }
+
+  /**
+   * validates a list of jsonStrings against dehubElementValidation.json. All elements are checked
+   * before an exception listing the errors per element index is thrown.
+   */
+  public void validateAll(List<String> jsonNodesToValidate) throws IOException {
+    StringBuilder errorsCombined = new StringBuilder();
+    for (int i = 0; i < jsonNodesToValidate.size(); i++) {
+      appendErrors(errorsCombined, i,
+          collectErrors(getJsonNodeFromStringContent(jsonNodesToValidate.get(i))));
+    }
+    if (errorsCombined.length() > 0) {
+      throw new IOException(
+          "The JSON objects you submitted did not pass validation.\n" + errorsCombined);
+    }
+  }
+
+  /**
+   * validates a JSON array of elements against dehubElementValidation.json while reading it. Only
+   * one element is held in memory at a time.
+   */
+  public void validateAll(InputStream jsonArrayToValidate) throws IOException {
+    StringBuilder errorsCombined = new StringBuilder();
+    try (JsonParser parser = mapper.getFactory().createParser(jsonArrayToValidate)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected a JSON array of elements.");
+      }
+      int index = 0;
+      for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY;
+          token = parser.nextToken()) {
+        if (token == null) {
+          throw new IOException("Unexpected end of input after " + index + " elements.");
+        }
+        JsonNode node = mapper.readTree(parser);
+        appendErrors(errorsCombined, index++, collectErrors(node));
+      }
+    }
+    if (errorsCombined.length() > 0) {
+      throw new IOException(
+          "The JSON objects you submitted did not pass validation.\n" + errorsCombined);
+    }
+  }
+
+  /**
+   * Validate a node against the element schema and return the combined error messages.
+   */
+  private String collectErrors(JsonNode node) {
+    Set<ValidationMessage> errors = elementSchema.validate(node);
     StringBuilder errorsCombined = new StringBuilder();
     for (ValidationMessage error : errors) {
       errorsCombined.append(error.toString()).append("\n");
     }
-    if (!errorsCombined.toString().equals("")) {
-      throw new IOException(
-          "The JSON object you submitted did not pass validation.\n" + errorsCombined);
+    return errorsCombined.toString();
+  }
+
+  private static void appendErrors(StringBuilder errorsCombined, int index, String errors) {
+    if (!errors.isEmpty()) {
+      errorsCombined.append("Element ").append(index).append(":\n").append(errors);
     }
   }
 
@@ -10,6 +10,7 @@ import de.dataelementhub.model.dto.element.Namespace;
 import de.dataelementhub.model.dto.element.section.Identification;
 import de.dataelementhub.model.dto.element.section.Member;
 import de.dataelementhub.model.dto.listviews.NamespaceMember;
+import de.dataelementhub.model.dto.listviews.NamespaceMemberPage;
 import de.dataelementhub.model.handler.element.ElementHandler;
 import de.dataelementhub.model.handler.element.NamespaceHandler;
 import de.dataelementhub.model.handler.element.section.DefinitionHandler;
@@ -181,6 +182,21 @@ public class NamespaceService {
     }
   }
 
+  /**
+   * Get one page of namespace members in listview representation, optionally sorted by
+   * designation or status and with definitions restricted to the requested languages.
+   */
+  public NamespaceMemberPage getNamespaceMembersListview(DSLContext ctx, int userId,
+      Integer namespaceSiIdentifier, List<String> elementTypesString, Boolean hideSubElements,
+      String languages, String sortBy, String afterValue, Integer afterId, int limit) {
+    List<ElementType> elementTypes = new ArrayList<>();
+    if (elementTypesString != null && !elementTypesString.isEmpty()) {
+      elementTypesString.forEach(et -> elementTypes.add(ElementType.valueOf(et.toUpperCase())));
+    }
+    return NamespaceHandler.getNamespaceMembersListview(ctx, userId, namespaceSiIdentifier,
+        elementTypes, hideSubElements, languages, sortBy, afterValue, afterId, limit);
+  }
+
   /**
    * Read the list of users that have access to a given namespace.
    */
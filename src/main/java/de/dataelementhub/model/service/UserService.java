@@ -4,10 +4,13 @@ import de.dataelementhub.dal.jooq.enums.AccessLevelType;
 import de.dataelementhub.dal.jooq.tables.pojos.DehubUser;
 import de.dataelementhub.model.dto.DeHubUserPermission;
 import de.dataelementhub.model.handler.AccessLevelHandler;
+import de.dataelementhub.model.handler.UserCache;
 import de.dataelementhub.model.handler.UserHandler;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -16,6 +19,22 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserService {
 
+  /**
+   * Set how many seconds users are cached. 0 disables the cache.
+   */
+  @Value("${dehub.user.cacheTtlInSeconds:300}")
+  public void setCacheTtlInSeconds(long cacheTtlInSeconds) {
+    UserCache.setTtl(cacheTtlInSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Set the maximum number of cached users. The least recently used users are dropped first.
+   */
+  @Value("${dehub.user.cacheMaxSize:10000}")
+  public void setCacheMaxSize(int cacheMaxSize) {
+    UserCache.setMaxSize(cacheMaxSize);
+  }
+
   /**
    * Give a user access to a namespace.
    */